@@ -1,10 +1,17 @@
 package com.igknight.game.controller;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,15 +19,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.igknight.game.dto.ChatHistoryResponse;
 import com.igknight.game.dto.CreateGameRequest;
+import com.igknight.game.dto.GameHistoryResponse;
 import com.igknight.game.dto.GameResponse;
 import com.igknight.game.dto.LegalMovesResponse;
 import com.igknight.game.dto.MakeMoveRequest;
 import com.igknight.game.exception.ForbiddenException;
+import com.igknight.game.exception.GameConflictException;
 import com.igknight.game.service.ChatService;
+import com.igknight.game.service.GameExportService;
 import com.igknight.game.service.GameService;
 
 import jakarta.validation.Valid;
@@ -29,12 +41,16 @@ import jakarta.validation.Valid;
 @RequestMapping("/api/chess")
 public class GameController {
 
+    private static final MediaType PGN = MediaType.parseMediaType("application/x-chess-pgn");
+
     private final GameService gameService;
     private final ChatService chatService;
+    private final GameExportService gameExportService;
 
-    public GameController(GameService gameService, ChatService chatService) {
+    public GameController(GameService gameService, ChatService chatService, GameExportService gameExportService) {
         this.gameService = gameService;
         this.chatService = chatService;
+        this.gameExportService = gameExportService;
     }
 
     @PostMapping("/games/create")
@@ -58,8 +74,9 @@ public class GameController {
     @GetMapping("/games/{gameId}")
     public ResponseEntity<GameResponse> getGame(
             @PathVariable Long gameId,
+            @RequestParam(required = false) Integer since,
             @RequestHeader("X-User-Id") Long userId) {
-        GameResponse game = gameService.getGame(gameId, userId);
+        GameResponse game = gameService.getGame(gameId, userId, since);
         return ResponseEntity.ok(game);
     }
 
@@ -69,6 +86,15 @@ public class GameController {
         return ResponseEntity.ok(games);
     }
 
+    @GetMapping("/games/history")
+    public ResponseEntity<GameHistoryResponse> getGameHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader("X-User-Id") Long playerId) {
+        GameHistoryResponse history = gameService.getGameHistory(playerId, cursor, limit);
+        return ResponseEntity.ok(history);
+    }
+
     @GetMapping("/games/active")
     public ResponseEntity<List<GameResponse>> getActiveGames(@RequestHeader("X-User-Id") Long playerId) {
         List<GameResponse> games = gameService.getActiveGames(playerId);
@@ -84,6 +110,38 @@ public class GameController {
         return ResponseEntity.ok(game);
     }
 
+    @GetMapping("/games/{gameId}.pgn")
+    public ResponseEntity<String> exportGame(
+            @PathVariable Long gameId,
+            @RequestHeader("X-User-Id") Long userId) {
+        String pgn = gameExportService.exportGame(gameId, userId);
+        return ResponseEntity.ok()
+                .contentType(PGN)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"game-" + gameId + ".pgn\"")
+                .body(pgn);
+    }
+
+    @GetMapping("/users/{userId}/games.pgn")
+    public ResponseEntity<StreamingResponseBody> exportUserGames(
+            @PathVariable Long userId,
+            @RequestHeader("X-User-Id") Long requesterId) {
+        // AUTHORIZATION: Users can only download their own archive
+        if (!userId.equals(requesterId)) {
+            throw new ForbiddenException("You can only export your own games");
+        }
+
+        // Written chunk by chunk while the games are read
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            gameExportService.exportUserGames(userId, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(PGN)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"games-" + userId + ".pgn\"")
+                .body(body);
+    }
+
     @GetMapping("/games/{gameId}/legal-moves/{square}")
     public ResponseEntity<LegalMovesResponse> getLegalMoves(
             @PathVariable Long gameId,
@@ -101,6 +159,14 @@ public class GameController {
         return ResponseEntity.ok(game);
     }
 
+    @PostMapping("/games/{gameId}/timeout")
+    public ResponseEntity<GameResponse> timeoutGame(
+            @PathVariable Long gameId,
+            @RequestHeader("X-User-Id") Long playerId) {
+        GameResponse game = gameService.timeoutGame(gameId, playerId);
+        return ResponseEntity.ok(game);
+    }
+
     @GetMapping("/games/{gameId}/chat")
     public ResponseEntity<ChatHistoryResponse> getChatHistory(
             @PathVariable Long gameId,
@@ -114,6 +180,16 @@ public class GameController {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", ex.getMessage()));
     }
 
+    @ExceptionHandler(GameConflictException.class)
+    public ResponseEntity<Map<String, String>> handleGameConflictException(GameConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Game was updated concurrently, please retry"));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, String>> handleRuntimeException(RuntimeException ex) {
         return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
@@ -0,0 +1,14 @@
+package com.igknight.game.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class GameHistoryResponse {
+    private List<GameSummary> games;
+    // Pass as cursor to get the next, older page; null on the last page
+    private String nextCursor;
+}
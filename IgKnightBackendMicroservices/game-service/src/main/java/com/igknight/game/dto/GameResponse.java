@@ -4,6 +4,7 @@ import lombok.Data;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Data
 public class GameResponse {
@@ -24,6 +25,12 @@ public class GameResponse {
     private LocalDateTime updatedAt;
     private LocalDateTime endedAt;
     private List<MoveInfo> moves;
+    // Total number of moves played; moves holds all of them unless movesSince is set
+    private Integer moveCount;
+    // Set on a delta response, which only lists the moves numbered above it
+    private Integer movesSince;
+    // Destination squares of each piece of the side to move, by square; only while the game is in progress
+    private Map<String, List<String>> legalMoves;
 
     @Data
     public static class PlayerInfo {
@@ -0,0 +1,29 @@
+package com.igknight.game.dto;
+
+import com.igknight.game.engine.GameStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A game in a history listing: its row only, without moves or board state.
+ * Built directly by a JPQL constructor expression.
+ */
+@Data
+@AllArgsConstructor
+public class GameSummary {
+    private Long id;
+    private Long whitePlayerId;
+    private String whitePlayerUsername;
+    private Long blackPlayerId;
+    private String blackPlayerUsername;
+    private GameStatus status;
+    private Long winnerId;
+    private Integer timeControl;
+    private Integer timeIncrement;
+    private Boolean isRated;
+    private Integer moveCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime endedAt;
+}
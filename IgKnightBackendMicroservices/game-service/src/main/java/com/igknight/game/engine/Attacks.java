@@ -0,0 +1,154 @@
+package com.igknight.game.engine;
+
+/**
+ * Precomputed attack masks for every square.
+ *
+ * Knight, king and pawn attacks are plain table lookups. Sliding pieces use
+ * classical ray attacks: the ray in each direction is cut off at the first
+ * occupied square, found with a single bit scan.
+ */
+public final class Attacks {
+
+    private static final int NORTH = 0;
+    private static final int NORTH_EAST = 1;
+    private static final int EAST = 2;
+    private static final int NORTH_WEST = 3;
+    private static final int SOUTH = 4;
+    private static final int SOUTH_WEST = 5;
+    private static final int WEST = 6;
+    private static final int SOUTH_EAST = 7;
+
+    // {rankDelta, fileDelta} per direction; the first four run towards higher square indices
+    private static final int[][] DIRECTIONS = {
+        {1, 0}, {1, 1}, {0, 1}, {1, -1},
+        {-1, 0}, {-1, -1}, {0, -1}, {-1, 1}
+    };
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+    private static final long[][] RAYS = new long[8][64];
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        int[][] knightOffsets = {
+            {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
+            {1, 2}, {1, -2}, {-1, 2}, {-1, -2}
+        };
+        for (int square = 0; square < 64; square++) {
+            int rank = Bitboards.rankOf(square);
+            int file = Bitboards.fileOf(square);
+
+            for (int[] offset : knightOffsets) {
+                KNIGHT_ATTACKS[square] |= maskAt(rank + offset[0], file + offset[1]);
+            }
+            for (int[] direction : DIRECTIONS) {
+                KING_ATTACKS[square] |= maskAt(rank + direction[0], file + direction[1]);
+            }
+            PAWN_ATTACKS[Color.WHITE.ordinal()][square] = maskAt(rank + 1, file - 1) | maskAt(rank + 1, file + 1);
+            PAWN_ATTACKS[Color.BLACK.ordinal()][square] = maskAt(rank - 1, file - 1) | maskAt(rank - 1, file + 1);
+
+            for (int direction = 0; direction < 8; direction++) {
+                int r = rank + DIRECTIONS[direction][0];
+                int f = file + DIRECTIONS[direction][1];
+                long between = 0L;
+                while (r >= 1 && r <= 8 && f >= 1 && f <= 8) {
+                    int target = Bitboards.square(r, f);
+                    RAYS[direction][square] |= Bitboards.bit(target);
+                    BETWEEN[square][target] = between;
+                    between |= Bitboards.bit(target);
+                    r += DIRECTIONS[direction][0];
+                    f += DIRECTIONS[direction][1];
+                }
+            }
+        }
+
+        for (int square = 0; square < 64; square++) {
+            for (int direction = 0; direction < 8; direction++) {
+                int opposite = (direction + 4) % 8;
+                long line = RAYS[direction][square] | RAYS[opposite][square] | Bitboards.bit(square);
+                long ray = RAYS[direction][square];
+                while (ray != 0) {
+                    LINE[square][Long.numberOfTrailingZeros(ray)] = line;
+                    ray &= ray - 1;
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    private static long maskAt(int rank, int file) {
+        if (rank < 1 || rank > 8 || file < 1 || file > 8) {
+            return 0L;
+        }
+        return Bitboards.bit(Bitboards.square(rank, file));
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * Squares a pawn of the given color standing on {@code square} attacks.
+     */
+    public static long pawnAttacks(Color color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /**
+     * Squares strictly between two squares on a shared rank, file or diagonal; empty otherwise.
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * The full edge-to-edge line through two aligned squares; empty if they are not aligned.
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return positiveRay(NORTH_EAST, square, occupied)
+                | positiveRay(NORTH_WEST, square, occupied)
+                | negativeRay(SOUTH_EAST, square, occupied)
+                | negativeRay(SOUTH_WEST, square, occupied);
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return positiveRay(NORTH, square, occupied)
+                | positiveRay(EAST, square, occupied)
+                | negativeRay(SOUTH, square, occupied)
+                | negativeRay(WEST, square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return bishopAttacks(square, occupied) | rookAttacks(square, occupied);
+    }
+
+    private static long positiveRay(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            ray ^= RAYS[direction][Long.numberOfTrailingZeros(blockers)];
+        }
+        return ray;
+    }
+
+    private static long negativeRay(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            ray ^= RAYS[direction][63 - Long.numberOfLeadingZeros(blockers)];
+        }
+        return ray;
+    }
+}
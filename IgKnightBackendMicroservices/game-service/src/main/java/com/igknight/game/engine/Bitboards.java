@@ -0,0 +1,39 @@
+package com.igknight.game.engine;
+
+/**
+ * Square indexing and bit helpers for the 64-bit board representation.
+ *
+ * Squares are numbered 0-63 starting at a1 and running file-first:
+ * a1 = 0, h1 = 7, a2 = 8, ... h8 = 63. Bit {@code n} of a bitboard is set
+ * when square {@code n} is a member of the set.
+ */
+public final class Bitboards {
+
+    public static final int NO_SQUARE = -1;
+
+    // Squares where (rank + file) is even, i.e. the a1 colour complex
+    public static final long DARK_SQUARES = 0xAA55AA55AA55AA55L;
+
+    private Bitboards() {
+    }
+
+    public static int square(int rank, int file) {
+        return (rank - 1) * 8 + (file - 1);
+    }
+
+    public static int rankOf(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    public static int fileOf(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static int firstSquare(long bitboard) {
+        return bitboard == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(bitboard);
+    }
+}
@@ -1,72 +1,146 @@
 package com.igknight.game.engine;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Board {
-    private final Piece[][] squares;
+    private static final int WHITE_KINGSIDE = 1;
+    private static final int WHITE_QUEENSIDE = 2;
+    private static final int BLACK_KINGSIDE = 4;
+    private static final int BLACK_QUEENSIDE = 8;
+
+    // Undo record layout: castling rights (4 bits), en passant square + 1 (7 bits),
+    // moved flags of the moving piece, castling rook and captured piece, then the half-move clock
+    private static final int UNDO_EN_PASSANT_SHIFT = 4;
+    private static final int UNDO_PIECE_MOVED_SHIFT = 11;
+    private static final int UNDO_ROOK_MOVED_SHIFT = 12;
+    private static final int UNDO_CAPTURED_MOVED_SHIFT = 13;
+    private static final int UNDO_HALF_MOVE_SHIFT = 14;
+
+    private static final PieceType[] BACK_RANK = {
+        PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP, PieceType.QUEEN,
+        PieceType.KING, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK
+    };
+
+    // One bitboard per piece type and color, indexed by bitboardIndex(color, type)
+    private final long[] pieceBitboards;
+    // Occupancy per color, indexed by Color.ordinal()
+    private final long[] colorBitboards;
+    private long occupied;
+    // Square-indexed lookup kept in sync with the bitboards for O(1) getPiece
+    private final Piece[] squares;
+    // Squares whose piece has moved since it was placed; pieces themselves are shared flyweights
+    private long movedSquares;
     private Color currentTurn;
-    private Position enPassantTarget;
-    private boolean whiteCanCastleKingside;
-    private boolean whiteCanCastleQueenside;
-    private boolean blackCanCastleKingside;
-    private boolean blackCanCastleQueenside;
+    private int enPassantSquare;
+    private int castlingRights;
     private int halfMoveClock;
     private int fullMoveNumber;
-    private final List<String> positionHistory;
+    // Zobrist key of the current position and the en passant term currently folded into it
+    private long zobristKey;
+    private long enPassantKey;
+    // Keys of the positions before the current one, oldest first
+    private long[] keyHistory;
+    private int keyHistorySize;
+    // makeMove/unmakeMove stack, grown on demand
+    private long[] undoStack;
+    private Piece[] capturedStack;
+    private int undoDepth;
 
     public Board() {
-        this.squares = new Piece[8][8];
+        this(true);
+    }
+
+    private Board(boolean standardPosition) {
+        this.pieceBitboards = new long[12];
+        this.colorBitboards = new long[2];
+        this.squares = new Piece[64];
         this.currentTurn = Color.WHITE;
-        this.enPassantTarget = null;
-        this.whiteCanCastleKingside = true;
-        this.whiteCanCastleQueenside = true;
-        this.blackCanCastleKingside = true;
-        this.blackCanCastleQueenside = true;
+        this.enPassantSquare = Bitboards.NO_SQUARE;
         this.halfMoveClock = 0;
         this.fullMoveNumber = 1;
-        this.positionHistory = new ArrayList<>();
-        initializeStandardPosition();
+        this.keyHistory = new long[32];
+        this.undoStack = new long[16];
+        this.capturedStack = new Piece[16];
+        if (standardPosition) {
+            this.castlingRights = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+            initializeStandardPosition();
+        }
+        rehash();
     }
 
-    private void initializeStandardPosition() {
-        // White pieces
-        setPiece(new Position(1, 1), new Piece(PieceType.ROOK, Color.WHITE));
-        setPiece(new Position(1, 2), new Piece(PieceType.KNIGHT, Color.WHITE));
-        setPiece(new Position(1, 3), new Piece(PieceType.BISHOP, Color.WHITE));
-        setPiece(new Position(1, 4), new Piece(PieceType.QUEEN, Color.WHITE));
-        setPiece(new Position(1, 5), new Piece(PieceType.KING, Color.WHITE));
-        setPiece(new Position(1, 6), new Piece(PieceType.BISHOP, Color.WHITE));
-        setPiece(new Position(1, 7), new Piece(PieceType.KNIGHT, Color.WHITE));
-        setPiece(new Position(1, 8), new Piece(PieceType.ROOK, Color.WHITE));
-        for (int file = 1; file <= 8; file++) {
-            setPiece(new Position(2, file), new Piece(PieceType.PAWN, Color.WHITE));
-        }
+    /**
+     * A board with no pieces and no castling rights, for {@link FenCodec} to fill in.
+     */
+    static Board empty() {
+        return new Board(false);
+    }
+
+    private Board(Board other) {
+        this.pieceBitboards = other.pieceBitboards.clone();
+        this.colorBitboards = other.colorBitboards.clone();
+        this.occupied = other.occupied;
+        this.squares = other.squares.clone();
+        this.movedSquares = other.movedSquares;
+        this.currentTurn = other.currentTurn;
+        this.enPassantSquare = other.enPassantSquare;
+        this.castlingRights = other.castlingRights;
+        this.halfMoveClock = other.halfMoveClock;
+        this.fullMoveNumber = other.fullMoveNumber;
+        this.zobristKey = other.zobristKey;
+        this.enPassantKey = other.enPassantKey;
+        this.keyHistory = other.keyHistory.clone();
+        this.keyHistorySize = other.keyHistorySize;
+        this.undoStack = new long[16];
+        this.capturedStack = new Piece[16];
+    }
 
-        // Black pieces
-        setPiece(new Position(8, 1), new Piece(PieceType.ROOK, Color.BLACK));
-        setPiece(new Position(8, 2), new Piece(PieceType.KNIGHT, Color.BLACK));
-        setPiece(new Position(8, 3), new Piece(PieceType.BISHOP, Color.BLACK));
-        setPiece(new Position(8, 4), new Piece(PieceType.QUEEN, Color.BLACK));
-        setPiece(new Position(8, 5), new Piece(PieceType.KING, Color.BLACK));
-        setPiece(new Position(8, 6), new Piece(PieceType.BISHOP, Color.BLACK));
-        setPiece(new Position(8, 7), new Piece(PieceType.KNIGHT, Color.BLACK));
-        setPiece(new Position(8, 8), new Piece(PieceType.ROOK, Color.BLACK));
+    private void initializeStandardPosition() {
         for (int file = 1; file <= 8; file++) {
-            setPiece(new Position(7, file), new Piece(PieceType.PAWN, Color.BLACK));
+            setPiece(Bitboards.square(1, file), Piece.of(BACK_RANK[file - 1], Color.WHITE));
+            setPiece(Bitboards.square(2, file), Piece.of(PieceType.PAWN, Color.WHITE));
+            setPiece(Bitboards.square(7, file), Piece.of(PieceType.PAWN, Color.BLACK));
+            setPiece(Bitboards.square(8, file), Piece.of(BACK_RANK[file - 1], Color.BLACK));
         }
     }
 
     public Piece getPiece(Position position) {
-        if (position == null || !position.isValid()) {
+        if (position == null) {
             return null;
         }
-        return squares[position.getRank() - 1][position.getFile() - 1];
+        return squares[position.getIndex()];
+    }
+
+    public Piece getPiece(int square) {
+        return squares[square];
     }
 
     public void setPiece(Position position, Piece piece) {
-        if (position != null && position.isValid()) {
-            squares[position.getRank() - 1][position.getFile() - 1] = piece;
+        if (position != null) {
+            setPiece(position.getIndex(), piece);
+        }
+    }
+
+    /**
+     * Places a piece (or clears the square when {@code piece} is null); the piece counts as not yet moved.
+     */
+    public void setPiece(int square, Piece piece) {
+        long mask = Bitboards.bit(square);
+        movedSquares &= ~mask;
+        Piece previous = squares[square];
+        if (previous != null) {
+            pieceBitboards[bitboardIndex(previous.getColor(), previous.getType())] &= ~mask;
+            colorBitboards[previous.getColor().ordinal()] &= ~mask;
+            occupied &= ~mask;
+            zobristKey ^= Zobrist.piece(previous, square);
+        }
+        squares[square] = piece;
+        if (piece != null) {
+            pieceBitboards[bitboardIndex(piece.getColor(), piece.getType())] |= mask;
+            colorBitboards[piece.getColor().ordinal()] |= mask;
+            occupied |= mask;
+            zobristKey ^= Zobrist.piece(piece, square);
         }
     }
 
@@ -74,38 +148,111 @@ public class Board {
         setPiece(position, null);
     }
 
+    public void removePiece(int square) {
+        setPiece(square, null);
+    }
+
+    public boolean hasMoved(Position position) {
+        return hasMoved(position.getIndex());
+    }
+
+    public boolean hasMoved(int square) {
+        return (movedSquares & Bitboards.bit(square)) != 0;
+    }
+
+    private void setMoved(int square, boolean moved) {
+        if (moved) {
+            movedSquares |= Bitboards.bit(square);
+        } else {
+            movedSquares &= ~Bitboards.bit(square);
+        }
+    }
+
+    public long getPieces(Color color, PieceType type) {
+        return pieceBitboards[bitboardIndex(color, type)];
+    }
+
+    public long getOccupancy(Color color) {
+        return colorBitboards[color.ordinal()];
+    }
+
+    public long getOccupied() {
+        return occupied;
+    }
+
+    private static int bitboardIndex(Color color, PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
     public Color getCurrentTurn() {
         return currentTurn;
     }
 
     public void setCurrentTurn(Color turn) {
+        if (turn != currentTurn) {
+            zobristKey ^= Zobrist.blackToMove();
+        }
         this.currentTurn = turn;
     }
 
     public Position getEnPassantTarget() {
-        return enPassantTarget;
+        return enPassantSquare == Bitboards.NO_SQUARE ? null : Position.fromIndex(enPassantSquare);
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
     }
 
     public void setEnPassantTarget(Position target) {
-        this.enPassantTarget = target;
+        setEnPassantSquare(target != null ? target.getIndex() : Bitboards.NO_SQUARE);
+    }
+
+    void setEnPassantSquare(int square) {
+        zobristKey ^= enPassantKey;
+        enPassantSquare = square;
+        enPassantKey = isEnPassantCapturePossible(square) ? Zobrist.enPassantFile(Bitboards.fileOf(square)) : 0L;
+        zobristKey ^= enPassantKey;
+    }
+
+    // Only hash the en passant file when a pawn could actually take, as the repetition rule requires
+    private boolean isEnPassantCapturePossible(int square) {
+        if (square == Bitboards.NO_SQUARE) {
+            return false;
+        }
+        Color capturer = Bitboards.rankOf(square) == 3 ? Color.BLACK : Color.WHITE;
+        return (Attacks.pawnAttacks(capturer.opposite(), square) & getPieces(capturer, PieceType.PAWN)) != 0;
     }
 
     public boolean canCastleKingside(Color color) {
-        return color == Color.WHITE ? whiteCanCastleKingside : blackCanCastleKingside;
+        return (castlingRights & kingsideRight(color)) != 0;
     }
 
     public boolean canCastleQueenside(Color color) {
-        return color == Color.WHITE ? whiteCanCastleQueenside : blackCanCastleQueenside;
+        return (castlingRights & queensideRight(color)) != 0;
     }
 
     public void setCastlingRights(Color color, boolean kingside, boolean queenside) {
-        if (color == Color.WHITE) {
-            whiteCanCastleKingside = kingside;
-            whiteCanCastleQueenside = queenside;
-        } else {
-            blackCanCastleKingside = kingside;
-            blackCanCastleQueenside = queenside;
+        int rights = castlingRights & ~(kingsideRight(color) | queensideRight(color));
+        if (kingside) {
+            rights |= kingsideRight(color);
         }
+        if (queenside) {
+            rights |= queensideRight(color);
+        }
+        setCastlingRightsMask(rights);
+    }
+
+    private void setCastlingRightsMask(int rights) {
+        zobristKey ^= Zobrist.castling(castlingRights) ^ Zobrist.castling(rights);
+        castlingRights = rights;
+    }
+
+    private static int kingsideRight(Color color) {
+        return color == Color.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+    }
+
+    private static int queensideRight(Color color) {
+        return color == Color.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
     }
 
     public int getHalfMoveClock() {
@@ -137,170 +284,325 @@ public class Board {
     }
 
     public Position findKing(Color color) {
-        for (int rank = 1; rank <= 8; rank++) {
-            for (int file = 1; file <= 8; file++) {
-                Position pos = new Position(rank, file);
-                Piece piece = getPiece(pos);
-                if (piece != null && piece.getType() == PieceType.KING && piece.getColor() == color) {
-                    return pos;
-                }
-            }
-        }
-        return null;
+        int square = findKingSquare(color);
+        return square == Bitboards.NO_SQUARE ? null : Position.fromIndex(square);
+    }
+
+    public int findKingSquare(Color color) {
+        return Bitboards.firstSquare(getPieces(color, PieceType.KING));
     }
 
     public List<Position> getAllPiecesPositions(Color color) {
-        List<Position> positions = new ArrayList<>();
-        for (int rank = 1; rank <= 8; rank++) {
-            for (int file = 1; file <= 8; file++) {
-                Position pos = new Position(rank, file);
-                Piece piece = getPiece(pos);
-                if (piece != null && piece.getColor() == color) {
-                    positions.add(pos);
-                }
-            }
+        long pieces = getOccupancy(color);
+        List<Position> positions = new ArrayList<>(Long.bitCount(pieces));
+        while (pieces != 0) {
+            positions.add(Position.fromIndex(Long.numberOfTrailingZeros(pieces)));
+            pieces &= pieces - 1;
         }
         return positions;
     }
 
-    public void addToPositionHistory(String fenPosition) {
-        positionHistory.add(fenPosition);
+    /**
+     * Plays a move in place, recording just enough state to take it back with
+     * {@link #unmakeMove(Move)}. Calls must be strictly nested (last made, first unmade).
+     */
+    public void makeMove(Move move) {
+        makeMove(PackedMove.fromMove(move));
     }
 
-    public int countPositionOccurrences(String fenPosition) {
-        return (int) positionHistory.stream().filter(pos -> pos.equals(fenPosition)).count();
-    }
+    /**
+     * {@link #makeMove(Move)} for a {@link PackedMove packed move}.
+     */
+    public void makeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        Piece piece = squares[from];
+        if (piece == null) {
+            throw new IllegalArgumentException("No piece on " + Position.fromIndex(from));
+        }
+        Color color = piece.getColor();
+        Piece captured = null;
+        boolean capturedMoved = false;
+        boolean rookMoved = false;
+
+        int previousEnPassant = enPassantSquare;
+        int previousHalfMoveClock = halfMoveClock;
+        boolean pieceMoved = hasMoved(from);
+        pushHistory(zobristKey);
+        setEnPassantSquare(Bitboards.NO_SQUARE);
+        int enPassantAfter = Bitboards.NO_SQUARE;
+
+        if (PackedMove.isCastling(move)) {
+            int rookFrom = castlingRookFrom(to);
+            if (rookFrom != Bitboards.NO_SQUARE) {
+                Piece rook = squares[rookFrom];
+                int rookTo = castlingRookTo(to);
+                rookMoved = hasMoved(rookFrom);
+                removePiece(rookFrom);
+                setPiece(rookTo, rook);
+                setMoved(rookTo, rook != null);
+            }
+            removePiece(from);
+            setPiece(to, piece);
+            setMoved(to, true);
+            halfMoveClock++;
+        } else if (PackedMove.isEnPassant(move)) {
+            int capturedSquare = enPassantCaptureSquare(to, color);
+            captured = squares[capturedSquare];
+            capturedMoved = hasMoved(capturedSquare);
+            removePiece(from);
+            setPiece(to, piece);
+            setMoved(to, true);
+            removePiece(capturedSquare);
+            halfMoveClock = 0;
+        } else if (PackedMove.isPromotion(move)) {
+            captured = squares[to];
+            capturedMoved = hasMoved(to);
+            removePiece(from);
+            setPiece(to, Piece.of(PackedMove.promotionPiece(move), color));
+            setMoved(to, true);
+            halfMoveClock = 0;
+        } else {
+            captured = squares[to];
+            capturedMoved = hasMoved(to);
+            boolean isPawnMove = piece.getType() == PieceType.PAWN;
+            removePiece(from);
+            setPiece(to, piece);
+            setMoved(to, true);
+
+            // Set en passant target for double pawn move
+            if (isPawnMove && Math.abs(to - from) == 16) {
+                enPassantAfter = (from + to) / 2;
+            }
 
-    public Board copy() {
-        Board newBoard = new Board();
-        // Clear the new board
-        for (int rank = 1; rank <= 8; rank++) {
-            for (int file = 1; file <= 8; file++) {
-                newBoard.removePiece(new Position(rank, file));
+            if (captured != null || isPawnMove) {
+                halfMoveClock = 0;
+            } else {
+                halfMoveClock++;
             }
         }
-        // Copy all pieces
-        for (int rank = 1; rank <= 8; rank++) {
-            for (int file = 1; file <= 8; file++) {
-                Position pos = new Position(rank, file);
-                Piece piece = getPiece(pos);
-                if (piece != null) {
-                    newBoard.setPiece(pos, piece.copy());
-                }
-            }
+
+        pushUndo(castlingRights
+                | (previousEnPassant + 1) << UNDO_EN_PASSANT_SHIFT
+                | (pieceMoved ? 1 : 0) << UNDO_PIECE_MOVED_SHIFT
+                | (rookMoved ? 1 : 0) << UNDO_ROOK_MOVED_SHIFT
+                | (capturedMoved ? 1 : 0) << UNDO_CAPTURED_MOVED_SHIFT
+                | (long) previousHalfMoveClock << UNDO_HALF_MOVE_SHIFT, captured);
+
+        updateCastlingRights(piece, from, to);
+        setEnPassantSquare(enPassantAfter);
+
+        setCurrentTurn(currentTurn.opposite());
+        if (currentTurn == Color.WHITE) {
+            fullMoveNumber++;
         }
-        newBoard.currentTurn = this.currentTurn;
-        newBoard.enPassantTarget = this.enPassantTarget;
-        newBoard.whiteCanCastleKingside = this.whiteCanCastleKingside;
-        newBoard.whiteCanCastleQueenside = this.whiteCanCastleQueenside;
-        newBoard.blackCanCastleKingside = this.blackCanCastleKingside;
-        newBoard.blackCanCastleQueenside = this.blackCanCastleQueenside;
-        newBoard.halfMoveClock = this.halfMoveClock;
-        newBoard.fullMoveNumber = this.fullMoveNumber;
-        newBoard.positionHistory.addAll(this.positionHistory);
-        return newBoard;
     }
 
-    public String toFEN() {
-        StringBuilder fen = new StringBuilder();
-        
-        // Piece placement
-        for (int rank = 8; rank >= 1; rank--) {
-            int emptyCount = 0;
-            for (int file = 1; file <= 8; file++) {
-                Piece piece = getPiece(new Position(rank, file));
-                if (piece == null) {
-                    emptyCount++;
-                } else {
-                    if (emptyCount > 0) {
-                        fen.append(emptyCount);
-                        emptyCount = 0;
-                    }
-                    fen.append(piece.toFEN());
-                }
-            }
-            if (emptyCount > 0) {
-                fen.append(emptyCount);
-            }
-            if (rank > 1) {
-                fen.append("/");
+    /**
+     * Takes back the most recent {@link #makeMove(Move)}, which must have been called with the same move.
+     */
+    public void unmakeMove(Move move) {
+        unmakeMove(PackedMove.fromMove(move));
+    }
+
+    public void unmakeMove(int move) {
+        undoDepth--;
+        long undo = undoStack[undoDepth];
+        Piece captured = capturedStack[undoDepth];
+        capturedStack[undoDepth] = null;
+
+        if (currentTurn == Color.WHITE) {
+            fullMoveNumber--;
+        }
+        setCurrentTurn(currentTurn.opposite());
+        setEnPassantSquare(Bitboards.NO_SQUARE);
+        Color color = currentTurn;
+
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        boolean pieceMoved = ((undo >>> UNDO_PIECE_MOVED_SHIFT) & 1) != 0;
+        boolean capturedMoved = ((undo >>> UNDO_CAPTURED_MOVED_SHIFT) & 1) != 0;
+
+        if (PackedMove.isCastling(move)) {
+            Piece king = squares[to];
+            removePiece(to);
+            setPiece(from, king);
+            setMoved(from, pieceMoved);
+            int rookFrom = castlingRookFrom(to);
+            if (rookFrom != Bitboards.NO_SQUARE) {
+                int rookTo = castlingRookTo(to);
+                Piece rook = squares[rookTo];
+                removePiece(rookTo);
+                setPiece(rookFrom, rook);
+                setMoved(rookFrom, ((undo >>> UNDO_ROOK_MOVED_SHIFT) & 1) != 0);
             }
+        } else if (PackedMove.isEnPassant(move)) {
+            int capturedSquare = enPassantCaptureSquare(to, color);
+            Piece pawn = squares[to];
+            removePiece(to);
+            setPiece(from, pawn);
+            setMoved(from, pieceMoved);
+            setPiece(capturedSquare, captured);
+            setMoved(capturedSquare, capturedMoved);
+        } else if (PackedMove.isPromotion(move)) {
+            setPiece(to, captured);
+            setMoved(to, capturedMoved);
+            setPiece(from, Piece.of(PieceType.PAWN, color));
+            setMoved(from, pieceMoved);
+        } else {
+            Piece piece = squares[to];
+            setPiece(to, captured);
+            setMoved(to, capturedMoved);
+            setPiece(from, piece);
+            setMoved(from, pieceMoved);
         }
 
-        // Active color
-        fen.append(" ").append(currentTurn == Color.WHITE ? "w" : "b");
-
-        // Castling rights
-        fen.append(" ");
-        StringBuilder castling = new StringBuilder();
-        if (whiteCanCastleKingside) castling.append("K");
-        if (whiteCanCastleQueenside) castling.append("Q");
-        if (blackCanCastleKingside) castling.append("k");
-        if (blackCanCastleQueenside) castling.append("q");
-        fen.append(castling.length() > 0 ? castling.toString() : "-");
+        setCastlingRightsMask((int) (undo & 0xF));
+        setEnPassantSquare((int) ((undo >>> UNDO_EN_PASSANT_SHIFT) & 0x7F) - 1);
+        halfMoveClock = (int) (undo >>> UNDO_HALF_MOVE_SHIFT);
+        keyHistorySize--;
+    }
 
-        // En passant target
-        fen.append(" ").append(enPassantTarget != null ? enPassantTarget.toAlgebraic() : "-");
+    private void pushUndo(long undo, Piece captured) {
+        if (undoDepth == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoDepth * 2);
+            capturedStack = Arrays.copyOf(capturedStack, undoDepth * 2);
+        }
+        undoStack[undoDepth] = undo;
+        capturedStack[undoDepth] = captured;
+        undoDepth++;
+    }
 
-        // Halfmove clock and fullmove number
-        fen.append(" ").append(halfMoveClock).append(" ").append(fullMoveNumber);
+    private void updateCastlingRights(Piece piece, int from, int to) {
+        Color color = piece.getColor();
+        int rights = castlingRights;
 
-        return fen.toString();
-    }
+        // If king moves, lose all castling rights for that color
+        if (piece.getType() == PieceType.KING) {
+            rights &= ~(kingsideRight(color) | queensideRight(color));
+        }
 
-    public static Board fromFEN(String fen) {
-        Board board = new Board();
-        // Clear the board
-        for (int rank = 1; rank <= 8; rank++) {
-            for (int file = 1; file <= 8; file++) {
-                board.removePiece(new Position(rank, file));
+        // If rook moves from starting position, lose castling right on that side
+        if (piece.getType() == PieceType.ROOK) {
+            int startRank = color.getStartRank();
+            if (from == Bitboards.square(startRank, 1)) {
+                rights &= ~queensideRight(color);
+            } else if (from == Bitboards.square(startRank, 8)) {
+                rights &= ~kingsideRight(color);
             }
         }
 
-        String[] parts = fen.trim().split("\\s+");
-        if (parts.length < 4) {
-            throw new IllegalArgumentException("Invalid FEN string");
+        // If rook is captured, opponent loses castling right on that side
+        Color opponentColor = color.opposite();
+        int opponentStartRank = opponentColor.getStartRank();
+        if (to == Bitboards.square(opponentStartRank, 1)) {
+            rights &= ~queensideRight(opponentColor);
+        } else if (to == Bitboards.square(opponentStartRank, 8)) {
+            rights &= ~kingsideRight(opponentColor);
         }
 
-        // Parse piece placement
-        String[] ranks = parts[0].split("/");
-        for (int i = 0; i < ranks.length; i++) {
-            int rank = 8 - i;
-            int file = 1;
-            for (char c : ranks[i].toCharArray()) {
-                if (Character.isDigit(c)) {
-                    file += Character.getNumericValue(c);
-                } else {
-                    Piece piece = Piece.fromFEN(c);
-                    board.setPiece(new Position(rank, file), piece);
-                    file++;
-                }
+        setCastlingRightsMask(rights);
+    }
+
+    private static int castlingRookFrom(int kingTo) {
+        return switch (Bitboards.fileOf(kingTo)) {
+            case 7 -> kingTo + 1;
+            case 3 -> kingTo - 2;
+            default -> Bitboards.NO_SQUARE;
+        };
+    }
+
+    private static int castlingRookTo(int kingTo) {
+        return Bitboards.fileOf(kingTo) == 7 ? kingTo - 1 : kingTo + 1;
+    }
+
+    private static int enPassantCaptureSquare(int to, Color color) {
+        return color == Color.WHITE ? to - 8 : to + 8;
+    }
+
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * How many times the current position has occurred, itself included. Only positions
+     * since the last capture or pawn move, with the same side to move, can match.
+     */
+    public int countRepetitions() {
+        int count = 1;
+        int oldest = Math.max(0, keyHistorySize - halfMoveClock);
+        for (int i = keyHistorySize - 2; i >= oldest; i -= 2) {
+            if (keyHistory[i] == zobristKey) {
+                count++;
             }
         }
+        return count;
+    }
 
-        // Parse active color
-        board.currentTurn = parts[1].equals("w") ? Color.WHITE : Color.BLACK;
+    /**
+     * Keys of the earlier positions that can still repeat, i.e. those since the last
+     * capture or pawn move, oldest first.
+     */
+    public long[] getPositionHistory() {
+        int size = Math.min(keyHistorySize, halfMoveClock);
+        return Arrays.copyOfRange(keyHistory, keyHistorySize - size, keyHistorySize);
+    }
 
-        // Parse castling rights
-        board.whiteCanCastleKingside = parts[2].contains("K");
-        board.whiteCanCastleQueenside = parts[2].contains("Q");
-        board.blackCanCastleKingside = parts[2].contains("k");
-        board.blackCanCastleQueenside = parts[2].contains("q");
+    /**
+     * Seeds the keys of the positions that led here, e.g. after rebuilding the board from FEN.
+     */
+    public void setPositionHistory(long[] keys) {
+        keyHistory = Arrays.copyOf(keys, Math.max(32, keys.length * 2));
+        keyHistorySize = keys.length;
+    }
 
-        // Parse en passant target
-        if (!parts[3].equals("-")) {
-            board.enPassantTarget = Position.fromAlgebraic(parts[3]);
+    private void pushHistory(long key) {
+        if (keyHistorySize == keyHistory.length) {
+            keyHistory = Arrays.copyOf(keyHistory, keyHistorySize * 2);
         }
+        keyHistory[keyHistorySize++] = key;
+    }
 
-        // Parse halfmove clock and fullmove number
-        if (parts.length >= 5) {
-            board.halfMoveClock = Integer.parseInt(parts[4]);
+    private long computeZobristKey() {
+        long key = 0L;
+        for (int square = 0; square < 64; square++) {
+            if (squares[square] != null) {
+                key ^= Zobrist.piece(squares[square], square);
+            }
         }
-        if (parts.length >= 6) {
-            board.fullMoveNumber = Integer.parseInt(parts[5]);
+        if (currentTurn == Color.BLACK) {
+            key ^= Zobrist.blackToMove();
         }
+        return key ^ Zobrist.castling(castlingRights) ^ enPassantKey;
+    }
+
+    // Recomputes the key from scratch after bulk setup and forgets earlier positions
+    void rehash() {
+        enPassantKey = isEnPassantCapturePossible(enPassantSquare)
+                ? Zobrist.enPassantFile(Bitboards.fileOf(enPassantSquare)) : 0L;
+        zobristKey = computeZobristKey();
+        keyHistorySize = 0;
+    }
+
+    public Board copy() {
+        return new Board(this);
+    }
 
-        return board;
+    public String toFEN() {
+        StringBuilder fen = new StringBuilder(FenCodec.MAX_LENGTH);
+        FenCodec.write(this, fen);
+        return fen.toString();
+    }
+
+    /**
+     * Appends the FEN of this position to a caller-owned builder, so it can be reused.
+     */
+    public void toFEN(StringBuilder out) {
+        FenCodec.write(this, out);
+    }
+
+    public static Board fromFEN(String fen) {
+        return FenCodec.read(fen);
     }
 
     @Override
@@ -310,7 +612,7 @@ public class Board {
         for (int rank = 8; rank >= 1; rank--) {
             sb.append(rank).append(" ");
             for (int file = 1; file <= 8; file++) {
-                Piece piece = getPiece(new Position(rank, file));
+                Piece piece = squares[Bitboards.square(rank, file)];
                 if (piece == null) {
                     sb.append(". ");
                 } else {
@@ -0,0 +1,188 @@
+package com.igknight.game.engine;
+
+/**
+ * Reads and writes Forsyth-Edwards Notation one character at a time.
+ *
+ * Parsing walks the string once and places pieces straight into an empty
+ * board; writing appends to a caller-supplied builder. Neither splits the
+ * string or creates positions along the way.
+ */
+public final class FenCodec {
+
+    // Piece placement (at most 64 + 7) plus the longest tail " w KQkq e3 100 1000"
+    static final int MAX_LENGTH = 92;
+
+    // Indexed by PieceType.ordinal()
+    private static final String WHITE_PIECES = "PNBRQK";
+    private static final String BLACK_PIECES = "pnbrqk";
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    private FenCodec() {
+    }
+
+    public static void write(Board board, StringBuilder out) {
+        for (int rank = 8; rank >= 1; rank--) {
+            int emptyCount = 0;
+            for (int file = 1; file <= 8; file++) {
+                Piece piece = board.getPiece(Bitboards.square(rank, file));
+                if (piece == null) {
+                    emptyCount++;
+                    continue;
+                }
+                if (emptyCount > 0) {
+                    out.append((char) ('0' + emptyCount));
+                    emptyCount = 0;
+                }
+                String pieces = piece.getColor() == Color.WHITE ? WHITE_PIECES : BLACK_PIECES;
+                out.append(pieces.charAt(piece.getType().ordinal()));
+            }
+            if (emptyCount > 0) {
+                out.append((char) ('0' + emptyCount));
+            }
+            if (rank > 1) {
+                out.append('/');
+            }
+        }
+
+        out.append(' ').append(board.getCurrentTurn() == Color.WHITE ? 'w' : 'b').append(' ');
+
+        int castlingStart = out.length();
+        if (board.canCastleKingside(Color.WHITE)) out.append('K');
+        if (board.canCastleQueenside(Color.WHITE)) out.append('Q');
+        if (board.canCastleKingside(Color.BLACK)) out.append('k');
+        if (board.canCastleQueenside(Color.BLACK)) out.append('q');
+        if (out.length() == castlingStart) {
+            out.append('-');
+        }
+
+        out.append(' ');
+        int enPassantSquare = board.getEnPassantSquare();
+        if (enPassantSquare == Bitboards.NO_SQUARE) {
+            out.append('-');
+        } else {
+            out.append((char) ('a' + Bitboards.fileOf(enPassantSquare) - 1))
+               .append((char) ('0' + Bitboards.rankOf(enPassantSquare)));
+        }
+
+        out.append(' ').append(board.getHalfMoveClock()).append(' ').append(board.getFullMoveNumber());
+    }
+
+    public static Board read(CharSequence fen) {
+        Board board = Board.empty();
+        int length = fen.length();
+        int i = skipWhitespace(fen, 0);
+
+        // Piece placement
+        int rank = 8;
+        int file = 1;
+        for (; i < length && !Character.isWhitespace(fen.charAt(i)); i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                rank--;
+                file = 1;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                int type = WHITE_PIECES.indexOf(c);
+                Color color = Color.WHITE;
+                if (type < 0) {
+                    type = BLACK_PIECES.indexOf(c);
+                    color = Color.BLACK;
+                }
+                if (type < 0 || rank < 1 || file > 8) {
+                    throw invalid(fen);
+                }
+                board.setPiece(Bitboards.square(rank, file), Piece.of(PIECE_TYPES[type], color));
+                file++;
+            }
+        }
+
+        // Active color
+        i = skipWhitespace(fen, i);
+        if (i >= length) {
+            throw invalid(fen);
+        }
+        board.setCurrentTurn(fen.charAt(i) == 'w' ? Color.WHITE : Color.BLACK);
+        i = skipField(fen, i);
+
+        // Castling rights
+        i = skipWhitespace(fen, i);
+        if (i >= length) {
+            throw invalid(fen);
+        }
+        boolean whiteKingside = false, whiteQueenside = false, blackKingside = false, blackQueenside = false;
+        for (; i < length && !Character.isWhitespace(fen.charAt(i)); i++) {
+            switch (fen.charAt(i)) {
+                case 'K' -> whiteKingside = true;
+                case 'Q' -> whiteQueenside = true;
+                case 'k' -> blackKingside = true;
+                case 'q' -> blackQueenside = true;
+                default -> { }
+            }
+        }
+        board.setCastlingRights(Color.WHITE, whiteKingside, whiteQueenside);
+        board.setCastlingRights(Color.BLACK, blackKingside, blackQueenside);
+
+        // En passant target
+        i = skipWhitespace(fen, i);
+        if (i >= length) {
+            throw invalid(fen);
+        }
+        if (fen.charAt(i) != '-') {
+            if (i + 1 >= length) {
+                throw invalid(fen);
+            }
+            int epFile = fen.charAt(i) - 'a' + 1;
+            int epRank = fen.charAt(i + 1) - '0';
+            if (epFile < 1 || epFile > 8 || epRank < 1 || epRank > 8) {
+                throw invalid(fen);
+            }
+            board.setEnPassantSquare(Bitboards.square(epRank, epFile));
+        }
+        i = skipField(fen, i);
+
+        // Halfmove clock and fullmove number are optional
+        i = skipWhitespace(fen, i);
+        if (i < length) {
+            int end = skipField(fen, i);
+            board.setHalfMoveClock(parseNumber(fen, i, end));
+            i = skipWhitespace(fen, end);
+            if (i < length) {
+                board.setFullMoveNumber(parseNumber(fen, i, skipField(fen, i)));
+            }
+        }
+
+        board.rehash();
+        return board;
+    }
+
+    private static int skipWhitespace(CharSequence fen, int i) {
+        while (i < fen.length() && Character.isWhitespace(fen.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipField(CharSequence fen, int i) {
+        while (i < fen.length() && !Character.isWhitespace(fen.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int parseNumber(CharSequence fen, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = fen.charAt(i);
+            if (c < '0' || c > '9') {
+                throw invalid(fen);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException invalid(CharSequence fen) {
+        return new IllegalArgumentException("Invalid FEN string: " + fen);
+    }
+}
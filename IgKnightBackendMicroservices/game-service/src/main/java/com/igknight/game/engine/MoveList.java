@@ -0,0 +1,82 @@
+package com.igknight.game.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growable list of {@link PackedMove packed moves} backed by an int array.
+ *
+ * Lists are meant to be reused: {@link #forPly} hands out one list per search
+ * depth on the current thread, so a recursive search never allocates, and
+ * {@link #scratch} is a per-thread list for callers that consume the moves
+ * before generating again.
+ */
+public final class MoveList {
+
+    // No legal position has more than 218 moves
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_PLY = 128;
+
+    private static final ThreadLocal<MoveList[]> PLY_LISTS = ThreadLocal.withInitial(() -> new MoveList[MAX_PLY]);
+    private static final ThreadLocal<MoveList> SCRATCH = ThreadLocal.withInitial(MoveList::new);
+
+    private int[] moves = new int[INITIAL_CAPACITY];
+    private int size;
+
+    public static MoveList forPly(int ply) {
+        MoveList[] lists = PLY_LISTS.get();
+        MoveList list = lists[ply];
+        if (list == null) {
+            list = new MoveList();
+            lists[ply] = list;
+        }
+        return list;
+    }
+
+    public static MoveList scratch() {
+        return SCRATCH.get();
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drops every move from {@code newSize} onwards.
+     */
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+
+    public List<Move> toMoves() {
+        List<Move> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(PackedMove.toMove(moves[i]));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package com.igknight.game.engine;
+
+/**
+ * A move packed into a single {@code int}, so move lists can be plain int arrays.
+ *
+ * Layout: from square (bits 0-5), to square (6-11), promotion piece as
+ * {@code PieceType.ordinal() + 1} or 0 for none (12-14), then the capture,
+ * castling and en passant flags. {@link #toMove} and {@link #fromMove} convert
+ * to and from {@link Move} at the REST boundary.
+ */
+public final class PackedMove {
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int CASTLING = 1 << 16;
+    public static final int EN_PASSANT = 1 << 17;
+
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    private PackedMove() {
+    }
+
+    public static int encode(int from, int to, int flags) {
+        return from | to << TO_SHIFT | flags;
+    }
+
+    public static int encode(int from, int to, PieceType promotion, int flags) {
+        int move = from | to << TO_SHIFT | flags;
+        return promotion != null ? move | (promotion.ordinal() + 1) << PROMOTION_SHIFT : move;
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & 0x3F;
+    }
+
+    public static PieceType promotionPiece(int move) {
+        int promotion = (move >>> PROMOTION_SHIFT) & 0x7;
+        return promotion == 0 ? null : PIECE_TYPES[promotion - 1];
+    }
+
+    public static boolean isPromotion(int move) {
+        return ((move >>> PROMOTION_SHIFT) & 0x7) != 0;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isCastling(int move) {
+        return (move & CASTLING) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    /**
+     * The same move with only from, to and promotion, for matching a request against generated moves.
+     */
+    public static int withoutFlags(int move) {
+        return move & ~(CAPTURE | CASTLING | EN_PASSANT);
+    }
+
+    public static int fromMove(Move move) {
+        int flags = (move.isCapture() ? CAPTURE : 0)
+                | (move.isCastling() ? CASTLING : 0)
+                | (move.isEnPassant() ? EN_PASSANT : 0);
+        return encode(move.getFrom().getIndex(), move.getTo().getIndex(), move.getPromotionPiece(), flags);
+    }
+
+    public static Move toMove(int move) {
+        return new Move(Position.fromIndex(from(move)), Position.fromIndex(to(move)), promotionPiece(move),
+                isCapture(move), isCastling(move), isEnPassant(move));
+    }
+
+    public static String toAlgebraic(int move) {
+        return toMove(move).toAlgebraic();
+    }
+}
@@ -1,22 +1,32 @@
 package com.igknight.game.engine;
 
-import java.util.Objects;
+/**
+ * An immutable piece of one type and color. There are exactly twelve instances,
+ * obtained through {@link #of}; whether a piece has moved is tracked by the Board.
+ */
+public final class Piece {
+    private static final Piece[][] PIECES = new Piece[2][PieceType.values().length];
+
+    static {
+        for (Color color : Color.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[color.ordinal()][type.ordinal()] = new Piece(type, color);
+            }
+        }
+    }
 
-public class Piece {
     private final PieceType type;
     private final Color color;
-    private boolean hasMoved;
+    private final String fen;
 
-    public Piece(PieceType type, Color color) {
+    private Piece(PieceType type, Color color) {
         this.type = type;
         this.color = color;
-        this.hasMoved = false;
+        this.fen = color == Color.WHITE ? type.getNotation() : type.getNotation().toLowerCase();
     }
 
-    public Piece(PieceType type, Color color, boolean hasMoved) {
-        this.type = type;
-        this.color = color;
-        this.hasMoved = hasMoved;
+    public static Piece of(PieceType type, Color color) {
+        return PIECES[color.ordinal()][type.ordinal()];
     }
 
     public PieceType getType() {
@@ -27,17 +37,8 @@ public class Piece {
         return color;
     }
 
-    public boolean hasMoved() {
-        return hasMoved;
-    }
-
-    public void setMoved(boolean moved) {
-        this.hasMoved = moved;
-    }
-
     public String toFEN() {
-        String notation = type.getNotation();
-        return color == Color.WHITE ? notation : notation.toLowerCase();
+        return fen;
     }
 
     public static Piece fromFEN(char fenChar) {
@@ -45,24 +46,17 @@ public class Piece {
         Color color = isWhite ? Color.WHITE : Color.BLACK;
         String notation = String.valueOf(Character.toUpperCase(fenChar));
         PieceType type = PieceType.fromNotation(notation);
-        return new Piece(type, color);
-    }
-
-    public Piece copy() {
-        return new Piece(type, color, hasMoved);
+        return of(type, color);
     }
 
     @Override
     public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Piece piece = (Piece) o;
-        return hasMoved == piece.hasMoved && type == piece.type && color == piece.color;
+        return this == o;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, color, hasMoved);
+        return color.ordinal() * 6 + type.ordinal();
     }
 
     @Override
@@ -1,17 +1,36 @@
 package com.igknight.game.engine;
 
-import java.util.Objects;
+/**
+ * A board square. There is exactly one instance per square, obtained through
+ * {@link #of}, {@link #fromIndex} or {@link #fromAlgebraic}, so positions never
+ * need to be allocated and compare cheaply.
+ */
+public final class Position {
+    private static final Position[] SQUARES = new Position[64];
+
+    static {
+        for (int index = 0; index < 64; index++) {
+            SQUARES[index] = new Position(Bitboards.rankOf(index), Bitboards.fileOf(index));
+        }
+    }
 
-public class Position {
     private final int rank; // 1-8
     private final int file; // 1-8 (a-h)
+    private final int index;
+    private final String algebraic;
 
-    public Position(int rank, int file) {
+    private Position(int rank, int file) {
+        this.rank = rank;
+        this.file = file;
+        this.index = Bitboards.square(rank, file);
+        this.algebraic = "" + (char) ('a' + file - 1) + rank;
+    }
+
+    public static Position of(int rank, int file) {
         if (rank < 1 || rank > 8 || file < 1 || file > 8) {
             throw new IllegalArgumentException("Invalid position: rank=" + rank + ", file=" + file);
         }
-        this.rank = rank;
-        this.file = file;
+        return SQUARES[Bitboards.square(rank, file)];
     }
 
     public static Position fromAlgebraic(String notation) {
@@ -27,12 +46,15 @@ public class Position {
         
         int file = fileChar - 'a' + 1;
         int rank = rankChar - '0';
-        return new Position(rank, file);
+        return SQUARES[Bitboards.square(rank, file)];
+    }
+
+    public static Position fromIndex(int index) {
+        return SQUARES[index];
     }
 
     public String toAlgebraic() {
-        char fileChar = (char) ('a' + file - 1);
-        return "" + fileChar + rank;
+        return algebraic;
     }
 
     public int getRank() {
@@ -43,8 +65,8 @@ public class Position {
         return file;
     }
 
-    public boolean isValid() {
-        return rank >= 1 && rank <= 8 && file >= 1 && file <= 8;
+    public int getIndex() {
+        return index;
     }
 
     public Position move(int rankDelta, int fileDelta) {
@@ -53,24 +75,21 @@ public class Position {
         if (newRank < 1 || newRank > 8 || newFile < 1 || newFile > 8) {
             return null;
         }
-        return new Position(newRank, newFile);
+        return SQUARES[Bitboards.square(newRank, newFile)];
     }
 
     @Override
     public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Position position = (Position) o;
-        return rank == position.rank && file == position.file;
+        return this == o;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(rank, file);
+        return index;
     }
 
     @Override
     public String toString() {
-        return toAlgebraic();
+        return algebraic;
     }
 }
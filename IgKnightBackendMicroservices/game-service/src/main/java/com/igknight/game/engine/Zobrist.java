@@ -0,0 +1,60 @@
+package com.igknight.game.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for 64-bit Zobrist position hashing.
+ *
+ * A position's key is the XOR of one key per (piece, square), the side-to-move
+ * key when black is to move, the key for the current castling rights and, when
+ * an en passant capture is actually available, the key for its file. Each term
+ * can be toggled independently, so Board keeps the key up to date move by move.
+ *
+ * The keys come from a fixed seed: hashes are stored with games and compared
+ * across restarts, so changing the seed invalidates every persisted hash.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x5EED_16C4_1647L;
+
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        // No rights hashes to zero so a bare position needs no castling term
+        for (int rights = 1; rights < CASTLING.length; rights++) {
+            CASTLING[rights] = random.nextLong();
+        }
+        for (int file = 0; file < EN_PASSANT_FILE.length; file++) {
+            EN_PASSANT_FILE[file] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long piece(Piece piece, int square) {
+        return PIECE_SQUARE[piece.getColor().ordinal() * 6 + piece.getType().ordinal()][square];
+    }
+
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    public static long enPassantFile(int file) {
+        return EN_PASSANT_FILE[file - 1];
+    }
+
+    public static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+}
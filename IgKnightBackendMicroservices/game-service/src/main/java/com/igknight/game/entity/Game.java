@@ -2,19 +2,25 @@ package com.igknight.game.entity;
 
 import com.igknight.game.engine.Color;
 import com.igknight.game.engine.GameStatus;
+import com.igknight.game.engine.PackedMove;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @Entity
 @Table(name = "chess_games", indexes = {
     @Index(name = "idx_game_status", columnList = "status"),
-    @Index(name = "idx_white_player", columnList = "white_player_id"),
-    @Index(name = "idx_black_player", columnList = "black_player_id"),
+    // Also serve the (created_at, id) keyset of a player's game history
+    @Index(name = "idx_white_player_created", columnList = "white_player_id, created_at, id"),
+    @Index(name = "idx_black_player_created", columnList = "black_player_id, created_at, id"),
     @Index(name = "idx_created_at", columnList = "created_at")
 })
 public class Game {
@@ -41,6 +47,19 @@ public class Game {
     @Column(name = "pgn_moves", columnDefinition = "TEXT")
     private String pgnMoves;
 
+    // Zobrist keys (8 bytes each) of the positions since the last capture or pawn move
+    @Column(name = "position_history", columnDefinition = "VARBINARY(MAX)")
+    private byte[] positionHistory;
+
+    // Every move played as a 2-byte PackedMove (from, to, promotion), in order; chess_moves holds the details
+    @Column(name = "move_list", columnDefinition = "VARBINARY(MAX)")
+    private byte[] moveList;
+
+    // Moves played, counting those not yet inserted into chess_moves
+    @ColumnDefault("0")
+    @Column(name = "move_count", nullable = false)
+    private Integer moveCount = 0;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "current_turn", nullable = false, length = 10)
     private Color currentTurn;
@@ -81,8 +100,16 @@ public class Game {
     @Column(name = "ended_at")
     private LocalDateTime endedAt;
 
+    // Bumped on every write; cached live games use it to detect that the row changed underneath them
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
+
+    // Games loaded without their moves initialize this for up to 100 of them in one query
     @OneToMany(mappedBy = "game", cascade = CascadeType.ALL, orphanRemoval = true)
     @OrderBy("move_number ASC")
+    @BatchSize(size = 100)
     private List<GameMove> moves = new ArrayList<>();
 
     // Constructors
@@ -156,6 +183,66 @@ public class Game {
         this.pgnMoves = pgnMoves;
     }
 
+    public long[] getPositionHistory() {
+        if (positionHistory == null) {
+            return new long[0];
+        }
+        long[] keys = new long[positionHistory.length / Long.BYTES];
+        ByteBuffer.wrap(positionHistory).asLongBuffer().get(keys);
+        return keys;
+    }
+
+    // Raw column value, for the cached-game write-through update
+    public byte[] getPositionHistoryBytes() {
+        return positionHistory;
+    }
+
+    public void appendPositionKey(long key) {
+        int length = positionHistory != null ? positionHistory.length : 0;
+        byte[] history = positionHistory != null ? Arrays.copyOf(positionHistory, length + Long.BYTES) : new byte[Long.BYTES];
+        ByteBuffer.wrap(history).putLong(length, key);
+        this.positionHistory = history;
+    }
+
+    public void clearPositionHistory() {
+        this.positionHistory = null;
+    }
+
+    /**
+     * The moves played, as {@link com.igknight.game.engine.PackedMove packed moves} without flags.
+     */
+    public int[] getMoveList() {
+        if (moveList == null) {
+            return new int[0];
+        }
+        int[] moves = new int[moveList.length / Short.BYTES];
+        ByteBuffer buffer = ByteBuffer.wrap(moveList);
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = buffer.getShort() & 0xFFFF;
+        }
+        return moves;
+    }
+
+    // Raw column value, for the cached-game write-through update
+    public byte[] getMoveListBytes() {
+        return moveList;
+    }
+
+    public void setMoveList(int[] moves) {
+        ByteBuffer buffer = ByteBuffer.allocate(moves.length * Short.BYTES);
+        for (int move : moves) {
+            buffer.putShort((short) PackedMove.withoutFlags(move));
+        }
+        this.moveList = buffer.array();
+    }
+
+    public void appendMove(int move) {
+        int length = moveList != null ? moveList.length : 0;
+        byte[] moves = moveList != null ? Arrays.copyOf(moveList, length + Short.BYTES) : new byte[Short.BYTES];
+        ByteBuffer.wrap(moves).putShort(length, (short) PackedMove.withoutFlags(move));
+        this.moveList = moves;
+    }
+
     public Color getCurrentTurn() {
         return currentTurn;
     }
@@ -241,6 +328,10 @@ public class Game {
         return updatedAt;
     }
 
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     public LocalDateTime getEndedAt() {
         return endedAt;
     }
@@ -249,6 +340,22 @@ public class Game {
         this.endedAt = endedAt;
     }
 
+    public Integer getMoveCount() {
+        return moveCount;
+    }
+
+    public void setMoveCount(Integer moveCount) {
+        this.moveCount = moveCount;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public List<GameMove> getMoves() {
         return moves;
     }
@@ -2,7 +2,6 @@ package com.igknight.game.entity;
 
 import com.igknight.game.engine.Color;
 import jakarta.persistence.*;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
@@ -12,8 +11,10 @@ import java.time.LocalDateTime;
 })
 public class GameMove {
 
+    // Sequence ids are drawn in blocks, so moves can be inserted in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chess_moves_seq")
+    @SequenceGenerator(name = "chess_moves_seq", sequenceName = "chess_moves_seq", allocationSize = 100)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -63,7 +64,7 @@ public class GameMove {
     @Column(name = "time_taken")
     private Integer timeTaken; // in milliseconds
 
-    @CreationTimestamp
+    // Set when the move is played; it may be inserted later (see GameMoveWriter)
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -211,4 +212,8 @@ public class GameMove {
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
 }
@@ -0,0 +1,11 @@
+package com.igknight.game.exception;
+
+/**
+ * Exception thrown when an operation on a game lost a race with another one on the same game.
+ * Results in HTTP 409 Conflict response.
+ */
+public class GameConflictException extends RuntimeException {
+    public GameConflictException(String message) {
+        super(message);
+    }
+}
@@ -17,6 +17,12 @@ public interface GameMoveRepository extends JpaRepository<GameMove, Long> {
     @Query("SELECT m FROM GameMove m WHERE m.game.id = :gameId ORDER BY m.moveNumber DESC")
     List<GameMove> findByGameIdOrderByMoveNumberDesc(@Param("gameId") Long gameId);
 
+    @Query("SELECT m FROM GameMove m WHERE m.game.id = :gameId AND m.moveNumber > :since ORDER BY m.moveNumber ASC")
+    List<GameMove> findByGameIdAndMoveNumberGreaterThan(@Param("gameId") Long gameId, @Param("since") Integer since);
+
+    @Query("SELECT m.moveNumber FROM GameMove m WHERE m.game.id = :gameId")
+    List<Integer> findMoveNumbersByGameId(@Param("gameId") Long gameId);
+
     @Query("SELECT COUNT(m) FROM GameMove m WHERE m.game.id = :gameId")
     Long countMovesByGameId(@Param("gameId") Long gameId);
 }
@@ -1,14 +1,23 @@
 package com.igknight.game.repository;
 
+import com.igknight.game.dto.GameSummary;
 import com.igknight.game.engine.GameStatus;
 import com.igknight.game.entity.Game;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface GameRepository extends JpaRepository<Game, Long> {
@@ -24,6 +33,56 @@ public interface GameRepository extends JpaRepository<Game, Long> {
            "ORDER BY g.createdAt DESC")
     List<Game> findAllGamesByUserId(@Param("userId") Long userId);
 
+    /**
+     * {@link #findActiveGamesByUserId} with each game's moves fetched in the same statement.
+     */
+    @EntityGraph(attributePaths = "moves")
+    @Query("SELECT g FROM Game g WHERE (g.whitePlayerId = :userId OR g.blackPlayerId = :userId) " +
+           "AND g.status IN (:statuses) ORDER BY g.updatedAt DESC")
+    List<Game> findActiveGamesWithMovesByUserId(@Param("userId") Long userId, @Param("statuses") List<GameStatus> statuses);
+
+    /**
+     * {@link #findAllGamesByUserId} with each game's moves fetched in the same statement.
+     */
+    @EntityGraph(attributePaths = "moves")
+    @Query("SELECT g FROM Game g WHERE (g.whitePlayerId = :userId OR g.blackPlayerId = :userId) " +
+           "ORDER BY g.createdAt DESC")
+    List<Game> findAllGamesWithMovesByUserId(@Param("userId") Long userId);
+
+    String GAME_SUMMARY = "SELECT new com.igknight.game.dto.GameSummary(g.id, g.whitePlayerId, g.whitePlayerUsername, " +
+            "g.blackPlayerId, g.blackPlayerUsername, g.status, g.winnerId, g.timeControl, g.timeIncrement, " +
+            "g.isRated, g.moveCount, g.createdAt, g.endedAt) FROM Game g ";
+
+    /**
+     * The newest games of a user, as summaries. Continue with {@link #findGameSummariesBefore}.
+     */
+    @Query(GAME_SUMMARY + "WHERE g.whitePlayerId = :userId OR g.blackPlayerId = :userId " +
+           "ORDER BY g.createdAt DESC, g.id DESC")
+    List<GameSummary> findGameSummaries(@Param("userId") Long userId, Limit limit);
+
+    /**
+     * The games of a user created before the given (createdAt, id) position, newest first. The position
+     * is the last game of the previous page, so pages never skip or repeat a game as new ones are created.
+     */
+    @Query(GAME_SUMMARY + "WHERE (g.whitePlayerId = :userId OR g.blackPlayerId = :userId) " +
+           "AND (g.createdAt < :createdAt OR (g.createdAt = :createdAt AND g.id < :id)) " +
+           "ORDER BY g.createdAt DESC, g.id DESC")
+    List<GameSummary> findGameSummariesBefore(@Param("userId") Long userId,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") Long id,
+                                              Limit limit);
+
+    /**
+     * A user's games, oldest first, read through a forward-only cursor. Must be consumed and closed within a
+     * transaction.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT g FROM Game g WHERE g.whitePlayerId = :userId OR g.blackPlayerId = :userId ORDER BY g.createdAt, g.id")
+    Stream<Game> streamGamesByUserId(@Param("userId") Long userId);
+
     @Query("SELECT g FROM Game g WHERE g.status = :status AND " +
            "(g.whitePlayerId = :userId OR g.blackPlayerId = :userId)")
     List<Game> findGamesByUserIdAndStatus(@Param("userId") Long userId, @Param("status") GameStatus status);
@@ -56,4 +115,18 @@ public interface GameRepository extends JpaRepository<Game, Long> {
 
     @Query("SELECT COUNT(g) FROM Game g WHERE g.status IN (:statuses)")
     Long countByStatusIn(@Param("statuses") List<GameStatus> statuses);
+
+    /**
+     * Writes the mutable state of a cached, detached game without loading it first.
+     * Only succeeds (returns 1) if the row is still at {@code expectedVersion}.
+     */
+    @Modifying
+    @Query("UPDATE Game g SET g.fenPosition = :#{#game.fenPosition}, g.positionHistory = :#{#game.positionHistoryBytes}, " +
+           "g.moveList = :#{#game.moveListBytes}, g.moveCount = :#{#game.moveCount}, " +
+           "g.currentTurn = :#{#game.currentTurn}, g.status = :#{#game.status}, g.winnerId = :#{#game.winnerId}, " +
+           "g.whiteTimeRemaining = :#{#game.whiteTimeRemaining}, g.blackTimeRemaining = :#{#game.blackTimeRemaining}, " +
+           "g.lastMoveAt = :#{#game.lastMoveAt}, g.endedAt = :#{#game.endedAt}, g.updatedAt = :updatedAt, " +
+           "g.version = g.version + 1 " +
+           "WHERE g.id = :#{#game.id} AND g.version = :#{#game.version}")
+    int updateLiveState(@Param("game") Game game, @Param("updatedAt") LocalDateTime updatedAt);
 }
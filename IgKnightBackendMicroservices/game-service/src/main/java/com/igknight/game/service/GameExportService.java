@@ -0,0 +1,81 @@
+package com.igknight.game.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.igknight.game.entity.Game;
+import com.igknight.game.exception.ForbiddenException;
+import com.igknight.game.repository.GameMoveRepository;
+import com.igknight.game.repository.GameRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * PGN downloads of single games and of a user's whole archive.
+ */
+@Service
+public class GameExportService {
+
+    // Games written between clears of the persistence context during an archive export
+    private static final int CLEAR_INTERVAL = 50;
+
+    private final GameRepository gameRepository;
+    private final GameMoveRepository gameMoveRepository;
+    private final PgnExporter pgnExporter;
+    private final EntityManager entityManager;
+
+    public GameExportService(GameRepository gameRepository,
+                             GameMoveRepository gameMoveRepository,
+                             PgnExporter pgnExporter,
+                             EntityManager entityManager) {
+        this.gameRepository = gameRepository;
+        this.gameMoveRepository = gameMoveRepository;
+        this.pgnExporter = pgnExporter;
+        this.entityManager = entityManager;
+    }
+
+    @Transactional(readOnly = true)
+    public String exportGame(Long gameId, Long userId) {
+        Game game = gameRepository.findById(gameId)
+                .orElseThrow(() -> new RuntimeException("Game not found"));
+
+        // AUTHORIZATION: Only players in the game can export it
+        if (!game.hasPlayer(userId)) {
+            throw new ForbiddenException("You are not a player in this game");
+        }
+
+        StringBuilder pgn = new StringBuilder(1024);
+        try {
+            pgnExporter.write(game, pgn, gameMoveRepository::findByGameIdOrderByMoveNumber);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return pgn.toString();
+    }
+
+    /**
+     * Writes every game of a user to {@code out} as it is read from the database, so memory use does not
+     * depend on the size of the archive.
+     */
+    @Transactional(readOnly = true)
+    public void exportUserGames(Long userId, Writer out) throws IOException {
+        try (Stream<Game> games = gameRepository.streamGamesByUserId(userId)) {
+            Iterator<Game> iterator = games.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                pgnExporter.write(iterator.next(), out, gameMoveRepository::findByGameIdOrderByMoveNumber);
+                // Otherwise the persistence context would keep every game read so far, along with the moves
+                // loaded for games without a move list
+                if (++written % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+}
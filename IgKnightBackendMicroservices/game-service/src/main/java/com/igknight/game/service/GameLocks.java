@@ -0,0 +1,72 @@
+package com.igknight.game.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.igknight.game.exception.GameConflictException;
+
+/**
+ * Serializes the operations that change a game, one game at a time.
+ *
+ * Games hash onto a fixed set of fair locks, so operations on the same game
+ * run in arrival order while different games almost always take different
+ * stripes and proceed in parallel. A lock is taken inside the transaction and
+ * released only once it has completed, after the committed state has been
+ * checked back into {@link LiveGameCache}, so the next operation on the game
+ * sees it. Nothing is locked in the database: the {@code version} column of
+ * the game still rejects a conflicting write from another instance.
+ */
+@Component
+public class GameLocks {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long waitTimeoutMillis;
+
+    public GameLocks(@Value("${chess.game-locks.stripes:1024}") int stripes,
+                     @Value("${chess.game-locks.wait-timeout-ms:5000}") long waitTimeoutMillis) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock(true);
+        }
+        this.mask = size - 1;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    /**
+     * Locks the game until the current transaction commits or rolls back.
+     *
+     * @throws GameConflictException if another operation on the game holds the lock for too long
+     */
+    public void lockUntilCompletion(Long gameId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Game " + gameId + " can only be locked inside a transaction");
+        }
+        ReentrantLock lock = stripeFor(gameId);
+        try {
+            if (!lock.tryLock(waitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new GameConflictException("Game " + gameId + " is busy, please retry");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GameConflictException("Interrupted while waiting for game " + gameId);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    private ReentrantLock stripeFor(Long gameId) {
+        // Consecutive ids land on consecutive stripes
+        return stripes[Long.hashCode(gameId) & mask];
+    }
+}
@@ -0,0 +1,363 @@
+package com.igknight.game.service;
+
+import java.io.IOException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.igknight.game.entity.Game;
+import com.igknight.game.entity.GameMove;
+import com.igknight.game.exception.GameConflictException;
+import com.igknight.game.repository.GameMoveRepository;
+import com.igknight.game.repository.GameRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind persistence of game moves.
+ *
+ * A move is journaled to local disk within the request, which is all the
+ * player waits for. Once the request's transaction has committed the move is
+ * queued, and a single background thread inserts whatever has queued up in
+ * one JDBC batch. Until then {@link #pendingMoves} exposes it, so reads can
+ * add it to the moves found in the database.
+ *
+ * Only transient failures (a lost connection, a lock timeout) are retried. A
+ * batch rejected otherwise is retried move by move, and a move the database
+ * still rejects is quarantined: it is logged, dropped from the pending moves
+ * and left in the journal, so the next run tries it again. At most
+ * {@code chess.move-writer.queue-capacity} moves wait for the database; a
+ * move played beyond that is refused.
+ *
+ * On startup the journal of the previous run is replayed: every move that its
+ * game row accounts for ({@code Game.moveCount}) but that is missing from
+ * {@code chess_moves} is inserted. Moves of transactions that never committed
+ * fail that check and are dropped; moves that are rejected again are journaled
+ * anew.
+ */
+@Component
+public class GameMoveWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(GameMoveWriter.class);
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long MAX_RETRY_DELAY_MILLIS = 5_000;
+    private static final long QUEUE_WAIT_MILLIS = 1_000;
+
+    private final MoveJournal journal;
+    private final GameRepository gameRepository;
+    private final GameMoveRepository gameMoveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    // A slot is taken before a move is journaled and returned once it is inserted, quarantined or rolled back
+    private final Semaphore queueSlots;
+    private final BlockingQueue<PendingMove> queue;
+    private final Map<Long, List<GameMove>> pendingByGame = new ConcurrentHashMap<>();
+    private final Thread flusher = new Thread(this::run, "game-move-writer");
+    private volatile boolean running = true;
+
+    public GameMoveWriter(MoveJournal journal,
+                          GameRepository gameRepository,
+                          GameMoveRepository gameMoveRepository,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${chess.move-writer.batch-size:100}") int batchSize,
+                          @Value("${chess.move-writer.queue-capacity:10000}") int queueCapacity) {
+        this.journal = journal;
+        this.gameRepository = gameRepository;
+        this.gameMoveRepository = gameMoveRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.queueSlots = new Semaphore(queueCapacity);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    void start() throws IOException, InterruptedException {
+        replay();
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        flusher.join();
+        journal.close();
+    }
+
+    /**
+     * Journals a move played in the current transaction, and queues it for the database once that commits.
+     *
+     * @throws GameConflictException if too many moves are already waiting for the database
+     */
+    public void write(Long gameId, GameMove move) {
+        acquireQueueSlot(gameId);
+        MoveJournal.Segment segment;
+        try {
+            segment = journal.append(gameId, move);
+        } catch (RuntimeException e) {
+            queueSlots.release();
+            throw e;
+        }
+        PendingMove pendingMove = new PendingMove(gameId, move, segment);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(pendingMove);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // Before afterCompletion, where GameLocks lets the next operation on the game in
+            @Override
+            public void afterCommit() {
+                enqueue(pendingMove);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                queueSlots.release();
+                // An unknown outcome stays journaled, for replay to check against the game row
+                if (status == STATUS_ROLLED_BACK) {
+                    segment.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Committed moves of a game not yet inserted, in move order. Read these before querying the stored
+     * moves: a move inserted in between then shows up in both, rather than in neither.
+     */
+    public List<GameMove> pendingMoves(Long gameId) {
+        return pendingByGame.getOrDefault(gameId, List.of());
+    }
+
+    private void acquireQueueSlot(Long gameId) {
+        try {
+            if (!queueSlots.tryAcquire(QUEUE_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new GameConflictException("Too many moves are waiting to be stored, please retry the move in game " + gameId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GameConflictException("Interrupted while queueing a move in game " + gameId);
+        }
+    }
+
+    private void enqueue(PendingMove pendingMove) {
+        // Added inside compute, so it cannot land in a list the flusher is dropping as empty
+        pendingByGame.compute(pendingMove.gameId(), (id, moves) -> {
+            List<GameMove> pending = moves != null ? moves : new CopyOnWriteArrayList<>();
+            pending.add(pendingMove.move());
+            return pending;
+        });
+        queue.add(pendingMove);
+    }
+
+    private void run() {
+        List<PendingMove> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMove first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Whatever queued up during the previous insert goes out in one batch
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                if (!insert(batch)) {
+                    return;
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Gives up only on shutdown, leaving the moves not yet inserted to journal replay
+    private boolean insert(List<PendingMove> batch) throws InterruptedException {
+        InsertResult result = insertWithRetry(batch);
+        if (result == InsertResult.SHUTDOWN) {
+            return false;
+        }
+        if (result == InsertResult.INSERTED) {
+            batch.forEach(this::complete);
+            return true;
+        }
+        if (batch.size() == 1) {
+            quarantine(batch.get(0));
+            return true;
+        }
+
+        // Some move in the batch cannot be inserted; find it, rather than holding up the others behind it
+        log.warn("Batch of {} moves rejected, inserting them one at a time", batch.size());
+        for (PendingMove pendingMove : batch) {
+            result = insertWithRetry(List.of(pendingMove));
+            if (result == InsertResult.SHUTDOWN) {
+                return false;
+            }
+            if (result == InsertResult.INSERTED) {
+                complete(pendingMove);
+            } else {
+                quarantine(pendingMove);
+            }
+        }
+        return true;
+    }
+
+    // Retries transient failures with backoff until the moves are in or shutdown begins
+    private InsertResult insertWithRetry(List<PendingMove> batch) throws InterruptedException {
+        long retryDelay = POLL_INTERVAL_MILLIS;
+        while (true) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<GameMove> moves = new ArrayList<>(batch.size());
+                    for (PendingMove pendingMove : batch) {
+                        GameMove move = pendingMove.move();
+                        // A failed attempt has already drawn ids from the sequence
+                        move.setId(null);
+                        move.setGame(gameRepository.getReferenceById(pendingMove.gameId()));
+                        moves.add(move);
+                    }
+                    gameMoveRepository.saveAll(moves);
+                });
+                return InsertResult.INSERTED;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    log.warn("Failed to insert {} moves: {}", batch.size(), e.getMessage());
+                    return InsertResult.REJECTED;
+                }
+                if (!running) {
+                    log.warn("Leaving {} moves in the journal at shutdown: {}", batch.size(), e.getMessage());
+                    return InsertResult.SHUTDOWN;
+                }
+                log.warn("Failed to insert {} moves, retrying in {} ms: {}", batch.size(), retryDelay, e.getMessage());
+                Thread.sleep(retryDelay);
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void complete(PendingMove pendingMove) {
+        dropPending(pendingMove);
+        if (pendingMove.segment() != null) {
+            pendingMove.segment().release();
+        }
+    }
+
+    // The journal keeps the move: its segment is never released, and a replayed move is journaled again
+    private void quarantine(PendingMove pendingMove) {
+        GameMove move = pendingMove.move();
+        log.error("Quarantined move {} of game {} ({} -> {}) after the database rejected it; it stays in the move journal",
+                move.getMoveNumber(), pendingMove.gameId(), move.getFromSquare(), move.getToSquare());
+        dropPending(pendingMove);
+        if (pendingMove.segment() == null) {
+            journal.append(pendingMove.gameId(), move);
+        }
+    }
+
+    private void dropPending(PendingMove pendingMove) {
+        if (pendingMove.segment() == null) {
+            // Replayed at startup: never pending, holds no queue slot
+            return;
+        }
+        pendingByGame.computeIfPresent(pendingMove.gameId(), (id, moves) -> {
+            moves.remove(pendingMove.move());
+            return moves.isEmpty() ? null : moves;
+        });
+        queueSlots.release();
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        if (e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException) {
+            return true;
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException
+                    || cause instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void replay() throws IOException, InterruptedException {
+        List<MoveJournal.Entry> entries = journal.recover();
+        if (entries.isEmpty()) {
+            journal.discardRecovered();
+            return;
+        }
+
+        // A later record wins: a move number is journaled again after a transaction that journaled it rolled back
+        Map<Long, TreeMap<Integer, GameMove>> movesByGame = new LinkedHashMap<>();
+        for (MoveJournal.Entry entry : entries) {
+            movesByGame.computeIfAbsent(entry.gameId(), id -> new TreeMap<>())
+                    .put(entry.move().getMoveNumber(), entry.move());
+        }
+
+        List<PendingMove> missing = transactionTemplate.execute(status -> {
+            List<PendingMove> found = new ArrayList<>();
+            for (Map.Entry<Long, TreeMap<Integer, GameMove>> gameMoves : movesByGame.entrySet()) {
+                Game game = gameRepository.findById(gameMoves.getKey()).orElse(null);
+                if (game == null) {
+                    continue;
+                }
+                Set<Integer> stored = new HashSet<>(gameMoveRepository.findMoveNumbersByGameId(game.getId()));
+                for (GameMove move : gameMoves.getValue().values()) {
+                    if (move.getMoveNumber() <= game.getMoveCount() && !stored.contains(move.getMoveNumber())) {
+                        found.add(new PendingMove(game.getId(), move, null));
+                    }
+                }
+            }
+            return found;
+        });
+        for (int from = 0; from < missing.size(); from += batchSize) {
+            insert(missing.subList(from, Math.min(from + batchSize, missing.size())));
+        }
+        journal.discardRecovered();
+        log.info("Replayed move journal: {} records, {} moves missing from the database", entries.size(), missing.size());
+    }
+
+    // segment is null for a move replayed from the previous run's journal
+    private record PendingMove(Long gameId, GameMove move, MoveJournal.Segment segment) {
+    }
+
+    private enum InsertResult {
+        INSERTED,
+        REJECTED,
+        SHUTDOWN
+    }
+}
@@ -1,32 +1,40 @@
 package com.igknight.game.service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.igknight.game.client.RealtimeGameServiceClient;
 import com.igknight.game.dto.CreateGameRequest;
+import com.igknight.game.dto.GameHistoryResponse;
 import com.igknight.game.dto.GameResponse;
+import com.igknight.game.dto.GameSummary;
 import com.igknight.game.dto.LegalMovesResponse;
 import com.igknight.game.dto.MakeMoveRequest;
 import com.igknight.game.engine.Board;
 import com.igknight.game.engine.Color;
 import com.igknight.game.engine.GameStatus;
 import com.igknight.game.engine.Move;
+import com.igknight.game.engine.PackedMove;
 import com.igknight.game.engine.Piece;
 import com.igknight.game.engine.PieceType;
 import com.igknight.game.engine.Position;
 import com.igknight.game.entity.Game;
 import com.igknight.game.entity.GameMove;
 import com.igknight.game.exception.ForbiddenException;
+import com.igknight.game.exception.GameConflictException;
 import com.igknight.game.exception.ResourceAlreadyExistsException;
 import com.igknight.game.repository.GameMoveRepository;
 import com.igknight.game.repository.GameRepository;
@@ -42,6 +50,10 @@ public class GameService {
     private final GameStateService gameStateService;
     private final GameWebSocketService webSocketService;
     private final RealtimeGameServiceClient realtimeGameServiceClient;
+    private final LiveGameCache liveGameCache;
+    private final GameLocks gameLocks;
+    private final GameMoveWriter gameMoveWriter;
+    private final LegalMoveMapCache legalMoveMapCache;
 
     public GameService(GameRepository gameRepository,
                       GameMoveRepository gameMoveRepository,
@@ -49,7 +61,11 @@ public class GameService {
                       MoveGenerator moveGenerator,
                       GameStateService gameStateService,
                       GameWebSocketService webSocketService,
-                      RealtimeGameServiceClient realtimeGameServiceClient) {
+                      RealtimeGameServiceClient realtimeGameServiceClient,
+                      LiveGameCache liveGameCache,
+                      GameLocks gameLocks,
+                      GameMoveWriter gameMoveWriter,
+                      LegalMoveMapCache legalMoveMapCache) {
         this.gameRepository = gameRepository;
         this.gameMoveRepository = gameMoveRepository;
         this.moveValidator = moveValidator;
@@ -57,8 +73,17 @@ public class GameService {
         this.gameStateService = gameStateService;
         this.webSocketService = webSocketService;
         this.realtimeGameServiceClient = realtimeGameServiceClient;
+        this.liveGameCache = liveGameCache;
+        this.gameLocks = gameLocks;
+        this.gameMoveWriter = gameMoveWriter;
+        this.legalMoveMapCache = legalMoveMapCache;
     }
 
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 20;
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    // Clock time this service may still show when the realtime service flags a player: it counts whole seconds
+    private static final int FLAG_TOLERANCE_SECONDS = 2;
+
     @Transactional
     public GameResponse createGame(Long userId, String username, CreateGameRequest request) {
         // Check if user already has an active game
@@ -73,6 +98,7 @@ public class GameService {
                         gameRepository.delete(oldGame);
                     } else {
                         // If game is IN_PROGRESS, mark as ABANDONED
+                        liveGameCache.evict(oldGame.getId());
                         oldGame.setStatus(GameStatus.ABANDONED);
                         gameRepository.save(oldGame);
                     }
@@ -124,6 +150,7 @@ public class GameService {
 
     @Transactional
     public GameResponse joinGame(Long gameId, Long userId, String username) {
+        gameLocks.lockUntilCompletion(gameId);
         Game game = gameRepository.findById(gameId)
                 .orElseThrow(() -> new RuntimeException("Game not found"));
 
@@ -159,7 +186,24 @@ public class GameService {
 
     @Transactional
     public GameResponse makeMove(Long gameId, Long userId, MakeMoveRequest request) {
-        Game game = gameRepository.findById(gameId)
+        // One operation per game at a time; the previous one has already checked its state back in
+        gameLocks.lockUntilCompletion(gameId);
+
+        // Games in progress are usually cached with their parsed board; a miss loads and parses the row
+        LiveGameCache.LiveGame live = liveGameCache.checkOut(gameId);
+        try {
+            return makeMove(gameId, userId, request, live);
+        } catch (RuntimeException e) {
+            // A rejected move leaves the cached state untouched, so keep it
+            if (live != null && !live.isModified()) {
+                liveGameCache.checkIn(live);
+            }
+            throw e;
+        }
+    }
+
+    private GameResponse makeMove(Long gameId, Long userId, MakeMoveRequest request, LiveGameCache.LiveGame live) {
+        Game game = live != null ? live.getGame() : gameRepository.findById(gameId)
                 .orElseThrow(() -> new RuntimeException("Game not found"));
 
         if (game.getStatus() != GameStatus.IN_PROGRESS) {
@@ -171,7 +215,7 @@ public class GameService {
         }
 
         Color playerColor = game.getPlayerColor(userId);
-        Board board = Board.fromFEN(game.getFenPosition());
+        Board board = live != null ? live.getBoard() : loadBoard(game);
 
         if (board.getCurrentTurn() != playerColor) {
             throw new RuntimeException("It's not your turn");
@@ -180,11 +224,17 @@ public class GameService {
         // Apply clock for the player about to move; if flagged, end immediately
         LocalDateTime now = LocalDateTime.now();
         if (game.getTimeControl() != null) {
+            if (live != null) {
+                live.markModified();
+            }
             ensureClockInitialization(game);
             applyClockForCurrentPlayer(game, board.getCurrentTurn(), now);
             if (game.getStatus() == GameStatus.TIMEOUT) {
-                game = gameRepository.save(game);
-                GameResponse timedOut = mapToGameResponse(game);
+                game = saveGame(game, live);
+                // A cached game's own move collection is as old as the cache entry; its live moves are current
+                GameResponse timedOut = live != null
+                        ? mapToGameResponse(game, board, live.getMoves())
+                        : mapToGameResponse(game);
                 webSocketService.notifyGameUpdate(gameId, timedOut);
                 webSocketService.notifyGameEnd(gameId, timedOut);
                 return timedOut;
@@ -199,10 +249,9 @@ public class GameService {
             promotion = PieceType.fromNotation(request.getPromotion());
         }
 
-        Move move = new Move(from, to, promotion);
-
-        // Validate move
-        if (!moveValidator.validateMove(board, move)) {
+        // Validate move; the generated move carries the castling and en passant flags the request lacks
+        Move move = moveValidator.findLegalMove(board, new Move(from, to, promotion));
+        if (move == null) {
             throw new RuntimeException("Invalid move");
         }
 
@@ -210,14 +259,21 @@ public class GameService {
         Piece piece = board.getPiece(from);
         boolean wasCapture = board.getPiece(to) != null || move.isEnPassant();
 
-        // Snapshot board for SAN generation
-        Board boardBeforeMove = board.copy();
-
         // Execute move
+        if (live != null) {
+            live.markModified();
+        }
+        long keyBeforeMove = board.getZobristKey();
         moveValidator.executeMove(board, move);
 
-        // Update game state
-        game.setFenPosition(board.toFEN());
+        // Update game state; positions before a capture or pawn move can never repeat
+        String fenAfterMove = board.toFEN();
+        game.setFenPosition(fenAfterMove);
+        if (board.getHalfMoveClock() == 0) {
+            game.clearPositionHistory();
+        } else {
+            game.appendPositionKey(keyBeforeMove);
+        }
         game.setCurrentTurn(board.getCurrentTurn());
 
         // Check game status
@@ -244,9 +300,21 @@ public class GameService {
         }
 
         // Record move
+        List<GameResponse.MoveInfo> moves;
+        if (live != null) {
+            moves = live.getMoves();
+        } else {
+            List<GameMove> played = loadMoves(game);
+            if (game.getMoveListBytes() == null) {
+                // Started before the move list, and possibly the move count, was kept on the game
+                game.setMoveList(played.stream().mapToInt(this::toPackedMove).toArray());
+                game.setMoveCount(Math.max(game.getMoveCount(), played.size()));
+            }
+            moves = played.stream().map(this::toMoveInfo).collect(Collectors.toCollection(ArrayList::new));
+        }
         GameMove gameMove = new GameMove();
-        gameMove.setGame(game);
-        gameMove.setMoveNumber(game.getMoves().size() + 1);
+        // Counted on the game row: a move the writer quarantined is missing from the loaded moves
+        gameMove.setMoveNumber(game.getMoveCount() + 1);
         gameMove.setPlayerColor(playerColor);
         gameMove.setFromSquare(request.getFrom());
         gameMove.setToSquare(request.getTo());
@@ -255,17 +323,28 @@ public class GameService {
         gameMove.setIsCapture(wasCapture);
         gameMove.setIsCastling(move.isCastling());
         gameMove.setIsEnPassant(move.isEnPassant());
-        boolean isCheck = moveValidator.isKingInCheck(board, board.getCurrentTurn());
+        boolean isCheck = gameStateService.isInCheck(board);
         gameMove.setIsCheck(isCheck);
         gameMove.setIsCheckmate(newStatus == GameStatus.CHECKMATE);
-        gameMove.setFenAfterMove(board.toFEN());
-        gameMove.setSanNotation(buildSanNotation(boardBeforeMove, move, wasCapture, isCheck, newStatus == GameStatus.CHECKMATE));
+        gameMove.setFenAfterMove(fenAfterMove);
+        gameMove.setSanNotation(buildSanNotation(piece, move, wasCapture, isCheck, newStatus == GameStatus.CHECKMATE));
+        gameMove.setCreatedAt(now);
 
-        gameMoveRepository.save(gameMove);
-        game = gameRepository.save(game);
+        game.appendMove(PackedMove.fromMove(move));
+        game.setMoveCount(gameMove.getMoveNumber());
+        game = saveGame(game, live);
+        // The move is acknowledged once journaled; it reaches chess_moves in a batch after commit
+        gameMoveWriter.write(gameId, gameMove);
 
         // Send WebSocket notifications
-        GameResponse gameResponse = mapToGameResponse(game);
+        GameResponse.MoveInfo moveInfo = toMoveInfo(gameMove);
+        moves.add(moveInfo);
+        GameResponse gameResponse = mapToGameResponse(game, board, isCheck, moves, gameMove.getMoveNumber(), null);
+
+        // Keep the game hot for its next move once this one is committed
+        if (game.getStatus() == GameStatus.IN_PROGRESS) {
+            liveGameCache.checkInAfterCommit(live != null ? live : new LiveGameCache.LiveGame(game, board, gameResponse.getMoves()));
+        }
 
         // Compact move payload for faster client updates
         Map<String, Object> movePayload = new HashMap<>();
@@ -291,8 +370,10 @@ public class GameService {
         webSocketService.notifyGameUpdate(gameId, gameResponse);
         webSocketService.notifyPlayerMove(gameId, movePayload);
         
-        // Notify realtime service for WebSocket broadcasting
-        realtimeGameServiceClient.notifyMove(gameId, gameResponse);
+        // Notify realtime service for WebSocket broadcasting; it only needs the move just played
+        int moveNumber = gameMove.getMoveNumber();
+        realtimeGameServiceClient.notifyMove(gameId,
+                mapToGameResponse(game, board, isCheck, List.of(moveInfo), moveNumber, moveNumber - 1));
         
         // If game ended, notify
         if (newStatus != GameStatus.IN_PROGRESS) {
@@ -302,7 +383,10 @@ public class GameService {
         return gameResponse;
     }
 
-    public GameResponse getGame(Long gameId, Long userId) {
+    /**
+     * The game with all of its moves or, when {@code since} is given, only the moves numbered after it.
+     */
+    public GameResponse getGame(Long gameId, Long userId, Integer since) {
         Game game = gameRepository.findById(gameId)
                 .orElseThrow(() -> new RuntimeException("Game not found"));
         
@@ -310,20 +394,59 @@ public class GameService {
         if (!game.hasPlayer(userId)) {
             throw new ForbiddenException("You are not a player in this game");
         }
-        
-        return mapToGameResponse(game);
+
+        if (since == null) {
+            return mapToGameResponse(game);
+        }
+
+        // Fetch only the missing moves rather than initializing the whole collection
+        List<GameMove> pending = gameMoveWriter.pendingMoves(gameId);
+        List<GameResponse.MoveInfo> moves = addPendingMoves(
+                gameMoveRepository.findByGameIdAndMoveNumberGreaterThan(gameId, since), pending, since)
+                .stream().map(this::toMoveInfo).toList();
+        // Moves are numbered from 1 without gaps, so the last one gives the count
+        int moveCount = moves.isEmpty()
+                ? Math.max(gameMoveRepository.countMovesByGameId(gameId).intValue(), game.getMoveCount())
+                : moves.get(moves.size() - 1).getMoveNumber();
+        Board board = Board.fromFEN(game.getFenPosition());
+        return mapToGameResponse(game, board, gameStateService.isInCheck(board), moves, moveCount, since);
     }
 
     public List<GameResponse> getUserGames(Long userId) {
-        List<Game> games = gameRepository.findAllGamesByUserId(userId);
+        List<Game> games = gameRepository.findAllGamesWithMovesByUserId(userId);
         return games.stream()
                 .map(this::mapToGameResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * One page of a user's games, newest first, as summaries without moves.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or null for the first page
+     */
+    public GameHistoryResponse getGameHistory(Long userId, String cursor, Integer limit) {
+        int pageSize = limit != null ? Math.min(Math.max(limit, 1), MAX_HISTORY_PAGE_SIZE) : DEFAULT_HISTORY_PAGE_SIZE;
+        // One extra row tells whether another page follows
+        Limit fetch = Limit.of(pageSize + 1);
+        List<GameSummary> games;
+        if (cursor == null || cursor.isBlank()) {
+            games = gameRepository.findGameSummaries(userId, fetch);
+        } else {
+            HistoryCursor position = HistoryCursor.decode(cursor);
+            games = gameRepository.findGameSummariesBefore(userId, position.createdAt(), position.id(), fetch);
+        }
+
+        if (games.size() <= pageSize) {
+            return new GameHistoryResponse(games, null);
+        }
+        List<GameSummary> page = games.subList(0, pageSize);
+        GameSummary last = page.get(pageSize - 1);
+        return new GameHistoryResponse(page, new HistoryCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
     public List<GameResponse> getActiveGames(Long userId) {
         List<GameStatus> activeStatuses = List.of(GameStatus.WAITING, GameStatus.IN_PROGRESS);
-        List<Game> games = gameRepository.findActiveGamesByUserId(userId, activeStatuses);
+        List<Game> games = gameRepository.findActiveGamesWithMovesByUserId(userId, activeStatuses);
         return games.stream()
                 .map(this::mapToGameResponse)
                 .collect(Collectors.toList());
@@ -341,6 +464,11 @@ public class GameService {
         Board board = Board.fromFEN(game.getFenPosition());
         Position position = Position.fromAlgebraic(square);
 
+        Piece piece = board.getPiece(position);
+        if (piece != null && piece.getColor() == board.getCurrentTurn()) {
+            return new LegalMovesResponse(square, legalMoveMapCache.get(board).getOrDefault(position.toAlgebraic(), List.of()));
+        }
+
         List<Move> legalMoves = moveValidator.generateLegalMovesForPiece(board, position);
         List<String> moveStrings = legalMoves.stream()
                 .map(move -> move.getTo().toAlgebraic())
@@ -351,6 +479,7 @@ public class GameService {
 
     @Transactional
     public GameResponse resignGame(Long gameId, Long userId) {
+        gameLocks.lockUntilCompletion(gameId);
         Game game = gameRepository.findById(gameId)
                 .orElseThrow(() -> new RuntimeException("Game not found"));
 
@@ -370,6 +499,7 @@ public class GameService {
         }
 
         // Set game status to RESIGNATION
+        liveGameCache.evict(gameId);
         game.setStatus(GameStatus.RESIGNATION);
         
         // Winner is the opponent (the player who didn't resign)
@@ -391,6 +521,81 @@ public class GameService {
         return response;
     }
 
+    /**
+     * Ends a game on time, for the player whose clock ran out. Reported by the realtime service, which
+     * runs the clocks and flags a player who stops moving.
+     *
+     * @throws GameConflictException if the player is not the side to move, or still has time on this service's clock
+     */
+    @Transactional
+    public GameResponse timeoutGame(Long gameId, Long userId) {
+        gameLocks.lockUntilCompletion(gameId);
+        Game game = gameRepository.findById(gameId)
+                .orElseThrow(() -> new RuntimeException("Game not found"));
+
+        if (!game.hasPlayer(userId)) {
+            throw new ForbiddenException("You are not a player in this game");
+        }
+
+        if (game.getStatus() != GameStatus.IN_PROGRESS) {
+            throw new RuntimeException("Game is not in progress");
+        }
+
+        if (game.getTimeControl() == null) {
+            throw new GameConflictException("Game " + gameId + " has no clock");
+        }
+
+        // Only the side to move has a running clock; a late or repeated report for the other side is stale
+        Color flagged = game.getPlayerColor(userId);
+        if (game.getCurrentTurn() != flagged) {
+            throw new GameConflictException("Player " + userId + " is not to move in game " + gameId);
+        }
+
+        // Confirm the flag against this service's clock; on a rejection the transaction discards the update
+        LocalDateTime now = LocalDateTime.now();
+        ensureClockInitialization(game);
+        applyClockForCurrentPlayer(game, flagged, now);
+        int remaining = flagged == Color.WHITE ? game.getWhiteTimeRemaining() : game.getBlackTimeRemaining();
+        if (game.getStatus() != GameStatus.TIMEOUT && remaining > FLAG_TOLERANCE_SECONDS) {
+            throw new GameConflictException("Player " + userId + " still has " + remaining + "s in game " + gameId);
+        }
+
+        liveGameCache.evict(gameId);
+        game.setStatus(GameStatus.TIMEOUT);
+        if (flagged == Color.WHITE) {
+            game.setWhiteTimeRemaining(0);
+            game.setWinnerId(game.getBlackPlayerId());
+        } else {
+            game.setBlackTimeRemaining(0);
+            game.setWinnerId(game.getWhitePlayerId());
+        }
+        game.setEndedAt(now);
+
+        game = gameRepository.save(game);
+        return mapToGameResponse(game);
+    }
+
+    private Board loadBoard(Game game) {
+        Board board = Board.fromFEN(game.getFenPosition());
+        board.setPositionHistory(game.getPositionHistory());
+        return board;
+    }
+
+    // Cached games are detached: write their columns in place rather than merging them back
+    private Game saveGame(Game game, LiveGameCache.LiveGame live) {
+        if (live == null) {
+            // Flush so the bumped version is known before the game is cached
+            return gameRepository.saveAndFlush(game);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (gameRepository.updateLiveState(game, now) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Game.class, game.getId());
+        }
+        game.setVersion(game.getVersion() + 1);
+        game.setUpdatedAt(now);
+        return game;
+    }
+
     private void ensureClockInitialization(Game game) {
         if (game.getTimeControl() == null) {
             return;
@@ -435,8 +640,7 @@ public class GameService {
         }
     }
 
-    private String buildSanNotation(Board boardBeforeMove, Move move, boolean wasCapture, boolean isCheck, boolean isCheckmate) {
-        Piece movingPiece = boardBeforeMove.getPiece(move.getFrom());
+    private String buildSanNotation(Piece movingPiece, Move move, boolean wasCapture, boolean isCheck, boolean isCheckmate) {
         if (movingPiece == null) {
             return move.toAlgebraic();
         }
@@ -474,7 +678,47 @@ public class GameService {
         return san.toString();
     }
 
+    // Reads the game's moves, so only for a game loaded in this transaction rather than a cached one
     private GameResponse mapToGameResponse(Game game) {
+        Board board = Board.fromFEN(game.getFenPosition());
+        return mapToGameResponse(game, board, loadMoves(game).stream().map(this::toMoveInfo).toList());
+    }
+
+    // Stored moves followed by those still waiting in GameMoveWriter
+    private List<GameMove> loadMoves(Game game) {
+        List<GameMove> pending = gameMoveWriter.pendingMoves(game.getId());
+        return addPendingMoves(game.getMoves(), pending, 0);
+    }
+
+    private List<GameMove> addPendingMoves(List<GameMove> stored, List<GameMove> pending, int since) {
+        List<GameMove> moves = new ArrayList<>(stored.size() + pending.size());
+        int lastMoveNumber = since;
+        for (GameMove move : stored) {
+            moves.add(move);
+            lastMoveNumber = move.getMoveNumber();
+        }
+        // A move inserted since the pending list was read is already among the stored ones
+        for (GameMove move : pending) {
+            if (move.getMoveNumber() > lastMoveNumber) {
+                moves.add(move);
+                lastMoveNumber = move.getMoveNumber();
+            }
+        }
+        return moves;
+    }
+
+    private int toPackedMove(GameMove move) {
+        PieceType promotion = move.getPromotionPiece() != null ? PieceType.valueOf(move.getPromotionPiece()) : null;
+        return PackedMove.encode(Position.fromAlgebraic(move.getFromSquare()).getIndex(),
+                Position.fromAlgebraic(move.getToSquare()).getIndex(), promotion, 0);
+    }
+
+    private GameResponse mapToGameResponse(Game game, Board board, List<GameResponse.MoveInfo> moves) {
+        return mapToGameResponse(game, board, gameStateService.isInCheck(board), moves, moves.size(), null);
+    }
+
+    private GameResponse mapToGameResponse(Game game, Board board, boolean isCheck, List<GameResponse.MoveInfo> moves,
+                                           int moveCount, Integer movesSince) {
         GameResponse response = new GameResponse();
         response.setId(game.getId());
 
@@ -503,34 +747,57 @@ public class GameService {
         response.setUpdatedAt(game.getUpdatedAt());
         response.setEndedAt(game.getEndedAt());
 
-        // Check if king is in check
-        Board board = Board.fromFEN(game.getFenPosition());
-        response.setIsCheck(moveValidator.isKingInCheck(board, board.getCurrentTurn()));
-
-        // Map moves
-        List<GameResponse.MoveInfo> moveInfos = new ArrayList<>();
-        for (GameMove move : game.getMoves()) {
-            GameResponse.MoveInfo moveInfo = new GameResponse.MoveInfo();
-            moveInfo.setMoveNumber(move.getMoveNumber());
-            moveInfo.setFrom(move.getFromSquare());
-            moveInfo.setTo(move.getToSquare());
-            moveInfo.setPiece(move.getPieceType());
-            String san = move.getSanNotation();
-            if (san == null || san.isBlank()) {
-                san = move.getFromSquare() + move.getToSquare();
-                if (move.getPromotionPiece() != null) {
-                    san = san + move.getPromotionPiece().charAt(0);
-                }
-            }
-            moveInfo.setSan(san);
-            moveInfo.setResultingFen(move.getFenAfterMove());
-            moveInfo.setIsCapture(move.getIsCapture());
-            moveInfo.setIsCheck(move.getIsCheck());
-            moveInfo.setIsCheckmate(move.getIsCheckmate());
-            moveInfos.add(moveInfo);
+        response.setIsCheck(isCheck);
+        if (game.getStatus() == GameStatus.IN_PROGRESS) {
+            response.setLegalMoves(legalMoveMapCache.get(board));
         }
-        response.setMoves(moveInfos);
+
+        // Copy, as a cached move list keeps growing after this response is sent
+        response.setMoves(new ArrayList<>(moves));
+        response.setMoveCount(moveCount);
+        response.setMovesSince(movesSince);
 
         return response;
     }
+
+    private GameResponse.MoveInfo toMoveInfo(GameMove move) {
+        GameResponse.MoveInfo moveInfo = new GameResponse.MoveInfo();
+        moveInfo.setMoveNumber(move.getMoveNumber());
+        moveInfo.setFrom(move.getFromSquare());
+        moveInfo.setTo(move.getToSquare());
+        moveInfo.setPiece(move.getPieceType());
+        String san = move.getSanNotation();
+        if (san == null || san.isBlank()) {
+            san = move.getFromSquare() + move.getToSquare();
+            if (move.getPromotionPiece() != null) {
+                san = san + move.getPromotionPiece().charAt(0);
+            }
+        }
+        moveInfo.setSan(san);
+        moveInfo.setResultingFen(move.getFenAfterMove());
+        moveInfo.setIsCapture(move.getIsCapture());
+        moveInfo.setIsCheck(move.getIsCheck());
+        moveInfo.setIsCheckmate(move.getIsCheckmate());
+        return moveInfo;
+    }
+
+    // Position of the last game on a history page, passed to clients as an opaque string
+    private record HistoryCursor(LocalDateTime createdAt, Long id) {
+
+        String encode() {
+            String position = createdAt + "," + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static HistoryCursor decode(String cursor) {
+            try {
+                String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int comma = position.indexOf(',');
+                return new HistoryCursor(LocalDateTime.parse(position.substring(0, comma)),
+                        Long.parseLong(position.substring(comma + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
 }
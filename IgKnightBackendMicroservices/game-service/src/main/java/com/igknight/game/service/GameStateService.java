@@ -1,21 +1,49 @@
 package com.igknight.game.service;
 
 import com.igknight.game.engine.*;
+import com.igknight.game.service.PositionAnalysisCache.PositionAnalysis;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
 import java.util.Map;
 
 @Service
 public class GameStateService {
 
     private final MoveValidator moveValidator;
+    private final PositionAnalysisCache positionAnalysisCache;
 
-    public GameStateService(MoveValidator moveValidator) {
+    public GameStateService(MoveValidator moveValidator, PositionAnalysisCache positionAnalysisCache) {
         this.moveValidator = moveValidator;
+        this.positionAnalysisCache = positionAnalysisCache;
+    }
+
+    /**
+     * Check, legal move count and material of the position, computed once per position and then
+     * served from {@link PositionAnalysisCache}.
+     */
+    public PositionAnalysis analyze(Board board) {
+        long key = board.getZobristKey();
+        PositionAnalysis analysis = positionAnalysisCache.get(key);
+        if (analysis == null) {
+            Color currentPlayer = board.getCurrentTurn();
+            MoveList legalMoves = MoveList.scratch();
+            moveValidator.generateLegalMoves(board, currentPlayer, legalMoves);
+            analysis = new PositionAnalysis(key, moveValidator.isKingInCheck(board, currentPlayer),
+                    legalMoves.size(), isDrawByInsufficientMaterial(board));
+            positionAnalysisCache.put(analysis);
+        }
+        return analysis;
+    }
+
+    public boolean isInCheck(Board board) {
+        return analyze(board).inCheck();
     }
 
     public boolean isCheckmate(Board board, Color color) {
+        if (color == board.getCurrentTurn()) {
+            return analyze(board).isCheckmate();
+        }
+
         // Must be in check
         if (!moveValidator.isKingInCheck(board, color)) {
             return false;
@@ -26,6 +54,9 @@ public class GameStateService {
     }
 
     public boolean isStalemate(Board board, Color color) {
+        if (color == board.getCurrentTurn()) {
+            return analyze(board).isStalemate();
+        }
         // Must NOT be in check
         if (moveValidator.isKingInCheck(board, color)) {
             return false;
@@ -36,8 +67,7 @@ public class GameStateService {
     }
 
     public boolean hasLegalMoves(Board board, Color color) {
-        List<Move> legalMoves = moveValidator.generateLegalMoves(board, color);
-        return !legalMoves.isEmpty();
+        return moveValidator.hasAnyLegalMove(board, color);
     }
 
     public boolean isDrawByFiftyMoveRule(Board board) {
@@ -45,92 +75,56 @@ public class GameStateService {
     }
 
     public boolean isDrawByThreefoldRepetition(Board board) {
-        String currentPosition = board.toFEN().split(" ")[0]; // Only piece placement part
-        return board.countPositionOccurrences(currentPosition) >= 3;
+        return board.countRepetitions() >= 3;
     }
 
     public boolean isDrawByInsufficientMaterial(Board board) {
-        List<Position> whitePieces = board.getAllPiecesPositions(Color.WHITE);
-        List<Position> blackPieces = board.getAllPiecesPositions(Color.BLACK);
+        long whitePieces = board.getOccupancy(Color.WHITE);
+        long blackPieces = board.getOccupancy(Color.BLACK);
+        int whiteCount = Long.bitCount(whitePieces);
+        int blackCount = Long.bitCount(blackPieces);
 
         // King vs King
-        if (whitePieces.size() == 1 && blackPieces.size() == 1) {
+        if (whiteCount == 1 && blackCount == 1) {
             return true;
         }
 
         // King and Bishop vs King
         // King and Knight vs King
-        if (whitePieces.size() == 2 && blackPieces.size() == 1) {
-            Piece piece = findNonKingPiece(board, whitePieces);
-            if (piece != null && (piece.getType() == PieceType.BISHOP || piece.getType() == PieceType.KNIGHT)) {
-                return true;
-            }
+        if (whiteCount == 2 && blackCount == 1) {
+            return hasMinorPiece(board, Color.WHITE);
         }
 
-        if (whitePieces.size() == 1 && blackPieces.size() == 2) {
-            Piece piece = findNonKingPiece(board, blackPieces);
-            if (piece != null && (piece.getType() == PieceType.BISHOP || piece.getType() == PieceType.KNIGHT)) {
-                return true;
-            }
+        if (whiteCount == 1 && blackCount == 2) {
+            return hasMinorPiece(board, Color.BLACK);
         }
 
         // King and Bishop vs King and Bishop (same color square)
-        if (whitePieces.size() == 2 && blackPieces.size() == 2) {
-            Piece whitePiece = findNonKingPiece(board, whitePieces);
-            Piece blackPiece = findNonKingPiece(board, blackPieces);
-
-            if (whitePiece != null && blackPiece != null &&
-                whitePiece.getType() == PieceType.BISHOP &&
-                blackPiece.getType() == PieceType.BISHOP) {
-
-                Position whitePos = findPiecePosition(board, whitePieces, PieceType.BISHOP);
-                Position blackPos = findPiecePosition(board, blackPieces, PieceType.BISHOP);
-
-                if (whitePos != null && blackPos != null) {
-                    // Check if bishops are on same color squares
-                    boolean whiteBishopOnLight = (whitePos.getRank() + whitePos.getFile()) % 2 == 0;
-                    boolean blackBishopOnLight = (blackPos.getRank() + blackPos.getFile()) % 2 == 0;
-                    if (whiteBishopOnLight == blackBishopOnLight) {
-                        return true;
-                    }
-                }
+        if (whiteCount == 2 && blackCount == 2) {
+            long whiteBishops = board.getPieces(Color.WHITE, PieceType.BISHOP);
+            long blackBishops = board.getPieces(Color.BLACK, PieceType.BISHOP);
+
+            if (whiteBishops != 0 && blackBishops != 0) {
+                // Check if bishops are on same color squares
+                boolean whiteBishopOnDark = (whiteBishops & Bitboards.DARK_SQUARES) != 0;
+                boolean blackBishopOnDark = (blackBishops & Bitboards.DARK_SQUARES) != 0;
+                return whiteBishopOnDark == blackBishopOnDark;
             }
         }
 
         return false;
     }
 
-    private Piece findNonKingPiece(Board board, List<Position> positions) {
-        for (Position pos : positions) {
-            Piece piece = board.getPiece(pos);
-            if (piece != null && piece.getType() != PieceType.KING) {
-                return piece;
-            }
-        }
-        return null;
-    }
-
-    private Position findPiecePosition(Board board, List<Position> positions, PieceType type) {
-        for (Position pos : positions) {
-            Piece piece = board.getPiece(pos);
-            if (piece != null && piece.getType() == type) {
-                return pos;
-            }
-        }
-        return null;
+    private boolean hasMinorPiece(Board board, Color color) {
+        return (board.getPieces(color, PieceType.BISHOP) | board.getPieces(color, PieceType.KNIGHT)) != 0;
     }
 
     public GameStatus determineGameStatus(Board board) {
-        Color currentPlayer = board.getCurrentTurn();
-
-        // Check for checkmate
-        if (isCheckmate(board, currentPlayer)) {
-            return GameStatus.CHECKMATE;
-        }
+        PositionAnalysis analysis = analyze(board);
 
-        // Check for stalemate
-        if (isStalemate(board, currentPlayer)) {
-            return GameStatus.STALEMATE;
+        // Check for checkmate or stalemate
+        if (analysis.legalMoveCount() == 0) {
+            return analysis.inCheck() ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
         }
 
         // Check for draws
@@ -142,7 +136,7 @@ public class GameStateService {
             return GameStatus.DRAW_REPETITION;
         }
 
-        if (isDrawByInsufficientMaterial(board)) {
+        if (analysis.insufficientMaterial()) {
             return GameStatus.DRAW_INSUFFICIENT_MATERIAL;
         }
 
@@ -152,15 +146,14 @@ public class GameStateService {
     public Map<String, Object> getGameState(Board board) {
         Color currentPlayer = board.getCurrentTurn();
         GameStatus status = determineGameStatus(board);
-        boolean isCheck = moveValidator.isKingInCheck(board, currentPlayer);
-        List<Move> legalMoves = moveValidator.generateLegalMoves(board, currentPlayer);
+        PositionAnalysis analysis = analyze(board);
 
         return Map.of(
             "fen", board.toFEN(),
             "currentTurn", currentPlayer.toString(),
             "status", status.toString(),
-            "isCheck", isCheck,
-            "legalMovesCount", legalMoves.size(),
+            "isCheck", analysis.inCheck(),
+            "legalMovesCount", analysis.legalMoveCount(),
             "halfMoveClock", board.getHalfMoveClock(),
             "fullMoveNumber", board.getFullMoveNumber()
         );
@@ -0,0 +1,266 @@
+package com.igknight.game.service;
+
+import com.igknight.game.engine.*;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Generates strictly legal moves without trying them on the board.
+ *
+ * Checkers and absolutely pinned pieces are computed once per position. Every
+ * non-king move is then restricted to the squares that resolve a single check
+ * and to its pin line; in double check only the king may move. King steps are
+ * tested with the king lifted off the board so sliders see through it. En
+ * passant re-traces attacks on the king with both pawns removed, which also
+ * catches the horizontal discovered check along the fifth rank.
+ */
+@Service
+public class LegalMoveGenerator {
+
+    private static final PieceType[] PROMOTION_PIECES = {
+        PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT
+    };
+
+    private final MoveGenerator moveGenerator;
+
+    public LegalMoveGenerator(MoveGenerator moveGenerator) {
+        this.moveGenerator = moveGenerator;
+    }
+
+    public List<Move> generateLegalMoves(Board board, Color color) {
+        MoveList moves = MoveList.scratch();
+        generateLegalMoves(board, color, moves);
+        return moves.toMoves();
+    }
+
+    /**
+     * Replaces the contents of {@code moves} with the legal moves of {@code color}, without allocating.
+     */
+    public void generateLegalMoves(Board board, Color color, MoveList moves) {
+        moves.clear();
+        generate(board, color, board.getOccupancy(color), moves, false);
+    }
+
+    public List<Move> generateLegalMovesForPiece(Board board, Position from) {
+        MoveList moves = MoveList.scratch();
+        generateLegalMovesForPiece(board, from.getIndex(), moves);
+        return moves.toMoves();
+    }
+
+    public void generateLegalMovesForPiece(Board board, int from, MoveList moves) {
+        moves.clear();
+        Piece piece = board.getPiece(from);
+        if (piece != null) {
+            generate(board, piece.getColor(), Bitboards.bit(from), moves, false);
+        }
+    }
+
+    public boolean hasAnyLegalMove(Board board, Color color) {
+        MoveList moves = MoveList.scratch();
+        moves.clear();
+        generate(board, color, board.getOccupancy(color), moves, true);
+        return !moves.isEmpty();
+    }
+
+    private void generate(Board board, Color color, long fromMask, MoveList moves, boolean stopAtFirst) {
+        int kingSquare = board.findKingSquare(color);
+        if (kingSquare == Bitboards.NO_SQUARE) {
+            return;
+        }
+
+        Color enemy = color.opposite();
+        long own = board.getOccupancy(color);
+        long enemies = board.getOccupancy(enemy);
+        long occupied = board.getOccupied();
+
+        // Squares a non-king move may land on: anywhere, the single checker or its ray, or nowhere
+        long checkers = moveGenerator.getAttackers(board, kingSquare, enemy, occupied);
+        long checkMask = -1L;
+        if (checkers != 0) {
+            checkMask = Long.bitCount(checkers) > 1
+                    ? 0L
+                    : checkers | Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+        }
+
+        long pinned = findPinnedPieces(board, kingSquare, color, own, enemies, occupied);
+
+        long pieces = fromMask & own & ~Bitboards.bit(kingSquare);
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+
+            long allowed = checkMask;
+            if ((pinned & Bitboards.bit(from)) != 0) {
+                allowed &= Attacks.line(kingSquare, from);
+            }
+
+            Piece piece = board.getPiece(from);
+            long targets = switch (piece.getType()) {
+                case KNIGHT -> Attacks.knightAttacks(from);
+                case BISHOP -> Attacks.bishopAttacks(from, occupied);
+                case ROOK -> Attacks.rookAttacks(from, occupied);
+                case QUEEN -> Attacks.queenAttacks(from, occupied);
+                default -> 0L;
+            };
+
+            if (piece.getType() == PieceType.PAWN) {
+                generatePawnMoves(board, from, color, kingSquare, allowed, enemies, occupied, moves);
+            } else {
+                addMoves(from, targets & ~own & allowed, enemies, moves);
+            }
+
+            if (stopAtFirst && !moves.isEmpty()) {
+                return;
+            }
+        }
+
+        if ((fromMask & Bitboards.bit(kingSquare)) != 0) {
+            generateKingMoves(board, kingSquare, color, own, enemies, occupied, checkers != 0, moves);
+        }
+    }
+
+    private long findPinnedPieces(Board board, int kingSquare, Color color, long own, long enemies, long occupied) {
+        Color enemy = color.opposite();
+        long enemyQueens = board.getPieces(enemy, PieceType.QUEEN);
+        long straightSliders = board.getPieces(enemy, PieceType.ROOK) | enemyQueens;
+        long diagonalSliders = board.getPieces(enemy, PieceType.BISHOP) | enemyQueens;
+
+        // Enemy sliders that would see the king if our own pieces were transparent
+        long snipers = (Attacks.rookAttacks(kingSquare, enemies) & straightSliders)
+                | (Attacks.bishopAttacks(kingSquare, enemies) & diagonalSliders);
+
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(kingSquare, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & own) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    private void generatePawnMoves(Board board, int from, Color color, int kingSquare, long allowed,
+                                   long enemies, long occupied, MoveList moves) {
+        int rank = Bitboards.rankOf(from);
+        if (rank == color.getPromotionRank()) {
+            return;
+        }
+
+        int step = color == Color.WHITE ? 8 : -8;
+        int oneForward = from + step;
+        if ((occupied & Bitboards.bit(oneForward)) == 0) {
+            if ((allowed & Bitboards.bit(oneForward)) != 0) {
+                addPawnMove(from, oneForward, false, color, moves);
+            }
+
+            // Double forward move from starting position
+            if (rank == color.getPawnStartRank()) {
+                int twoForward = oneForward + step;
+                if ((occupied & Bitboards.bit(twoForward)) == 0 && (allowed & Bitboards.bit(twoForward)) != 0) {
+                    moves.add(PackedMove.encode(from, twoForward, 0));
+                }
+            }
+        }
+
+        long attacks = Attacks.pawnAttacks(color, from);
+        long captures = attacks & enemies & allowed;
+        while (captures != 0) {
+            int to = Long.numberOfTrailingZeros(captures);
+            captures &= captures - 1;
+            addPawnMove(from, to, true, color, moves);
+        }
+
+        // En passant: replay attacks on the king with both pawns gone and ours on the target square
+        int enPassantSquare = board.getEnPassantSquare();
+        if (enPassantSquare != Bitboards.NO_SQUARE
+                && (attacks & Bitboards.bit(enPassantSquare)) != 0
+                && (occupied & Bitboards.bit(enPassantSquare)) == 0) {
+            int capturedSquare = enPassantSquare - step;
+            long capturedMask = Bitboards.bit(capturedSquare);
+            long occupiedAfter = (occupied & ~Bitboards.bit(from) & ~capturedMask) | Bitboards.bit(enPassantSquare);
+            long attackers = moveGenerator.getAttackers(board, kingSquare, color.opposite(), occupiedAfter) & ~capturedMask;
+            if (attackers == 0) {
+                moves.add(PackedMove.encode(from, enPassantSquare, PackedMove.CAPTURE | PackedMove.EN_PASSANT));
+            }
+        }
+    }
+
+    private void addPawnMove(int from, int to, boolean isCapture, Color color, MoveList moves) {
+        int flags = isCapture ? PackedMove.CAPTURE : 0;
+        if (Bitboards.rankOf(to) == color.getPromotionRank()) {
+            for (PieceType promotion : PROMOTION_PIECES) {
+                moves.add(PackedMove.encode(from, to, promotion, flags));
+            }
+        } else {
+            moves.add(PackedMove.encode(from, to, flags));
+        }
+    }
+
+    private void generateKingMoves(Board board, int kingSquare, Color color, long own, long enemies,
+                                   long occupied, boolean inCheck, MoveList moves) {
+        Color enemy = color.opposite();
+        long occupiedWithoutKing = occupied & ~Bitboards.bit(kingSquare);
+
+        long targets = Attacks.kingAttacks(kingSquare) & ~own;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (moveGenerator.getAttackers(board, to, enemy, occupiedWithoutKing) == 0) {
+                addMoves(kingSquare, Bitboards.bit(to), enemies, moves);
+            }
+        }
+
+        // Castling: never out of, through or into check
+        if (inCheck || board.hasMoved(kingSquare)) {
+            return;
+        }
+        int rank = color.getStartRank();
+
+        if (board.canCastleKingside(color)
+                && isUnmovedRook(board, Bitboards.square(rank, 8))
+                && isEmpty(occupied, rank, 6, 7)
+                && isSafe(board, enemy, occupied, rank, 6, 7)) {
+            moves.add(PackedMove.encode(kingSquare, Bitboards.square(rank, 7), PackedMove.CASTLING));
+        }
+
+        if (board.canCastleQueenside(color)
+                && isUnmovedRook(board, Bitboards.square(rank, 1))
+                && isEmpty(occupied, rank, 2, 4)
+                && isSafe(board, enemy, occupied, rank, 3, 4)) {
+            moves.add(PackedMove.encode(kingSquare, Bitboards.square(rank, 3), PackedMove.CASTLING));
+        }
+    }
+
+    private boolean isUnmovedRook(Board board, int square) {
+        return board.getPiece(square) != null && !board.hasMoved(square);
+    }
+
+    private boolean isEmpty(long occupied, int rank, int fromFile, int toFile) {
+        for (int file = fromFile; file <= toFile; file++) {
+            if ((occupied & Bitboards.bit(Bitboards.square(rank, file))) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isSafe(Board board, Color enemy, long occupied, int rank, int fromFile, int toFile) {
+        for (int file = fromFile; file <= toFile; file++) {
+            if (moveGenerator.getAttackers(board, Bitboards.square(rank, file), enemy, occupied) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addMoves(int from, long targets, long enemies, MoveList moves) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(PackedMove.encode(from, to, (enemies & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : 0));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.igknight.game.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.igknight.game.engine.Board;
+import com.igknight.game.engine.MoveList;
+import com.igknight.game.engine.PackedMove;
+import com.igknight.game.engine.Position;
+
+/**
+ * Legal moves of the side to move, by origin square, for sending along with a
+ * game so clients can highlight moves without asking square by square.
+ *
+ * Maps are cached by the position's Zobrist key, so both players, spectators
+ * and repeated reads of the same position share one generation. Cached maps are
+ * immutable. Beyond {@code max-entries} the least recently used is dropped.
+ */
+@Component
+public class LegalMoveMapCache {
+
+    private final MoveValidator moveValidator;
+    private final int maxEntries;
+
+    private final LinkedHashMap<Long, Map<String, List<String>>> maps = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Map<String, List<String>>> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public LegalMoveMapCache(MoveValidator moveValidator,
+                             @Value("${chess.legal-move-cache.max-entries:10000}") int maxEntries) {
+        this.moveValidator = moveValidator;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Destination squares of every piece of the side to move that has a legal move, keyed by the piece's
+     * square. A promotion is listed once, whatever the piece chosen.
+     */
+    public Map<String, List<String>> get(Board board) {
+        long key = board.getZobristKey();
+        synchronized (maps) {
+            Map<String, List<String>> cached = maps.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // Generated outside the lock; two requests racing on a new position just both generate it
+        Map<String, List<String>> map = generate(board);
+        synchronized (maps) {
+            maps.put(key, map);
+        }
+        return map;
+    }
+
+    private Map<String, List<String>> generate(Board board) {
+        MoveList moves = MoveList.scratch();
+        moveValidator.generateLegalMoves(board, board.getCurrentTurn(), moves);
+        Map<String, List<String>> map = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++) {
+            List<String> targets = map.computeIfAbsent(Position.fromIndex(PackedMove.from(moves.get(i))).toAlgebraic(),
+                    square -> new ArrayList<>(4));
+            String target = Position.fromIndex(PackedMove.to(moves.get(i))).toAlgebraic();
+            // A promotion is generated once per piece
+            if (!targets.contains(target)) {
+                targets.add(target);
+            }
+        }
+        map.replaceAll((square, targets) -> List.copyOf(targets));
+        return Collections.unmodifiableMap(map);
+    }
+}
@@ -0,0 +1,9 @@
+package com.igknight.game.service;
+
+/**
+ * How MoveValidator produces legal moves, selected with {@code chess.engine.legal-move-strategy}.
+ */
+public enum LegalMoveStrategy {
+    PSEUDO_LEGAL_FILTER, // Generate pseudo-legal moves, then make/unmake each one and test the king
+    PIN_AWARE           // LegalMoveGenerator: checkers and pins computed once, only legal moves emitted
+}
@@ -0,0 +1,149 @@
+package com.igknight.game.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.igknight.game.dto.GameResponse;
+import com.igknight.game.engine.Board;
+import com.igknight.game.entity.Game;
+
+/**
+ * In-memory state of games in progress, so a move does not reload the game row
+ * and re-parse its FEN.
+ *
+ * An entry is checked out for the duration of a move and checked back in after
+ * the transaction commits. {@link GameLocks} keeps same-game requests in this
+ * instance apart; should one still get through, it finds nothing cached and
+ * goes to the database, and the version check on the write-through update
+ * decides which of the two wins. Entries are evicted
+ * least-recently-used first beyond {@code max-entries}, and once idle for
+ * longer than {@code idle-timeout-minutes}.
+ */
+@Component
+public class LiveGameCache {
+
+    private final int maxEntries;
+    private final long idleTimeoutNanos;
+
+    // Insertion order equals last-use order because every use removes and re-inserts the entry
+    private final LinkedHashMap<Long, LiveGame> games = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, LiveGame> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public LiveGameCache(@Value("${chess.live-game-cache.max-entries:10000}") int maxEntries,
+                         @Value("${chess.live-game-cache.idle-timeout-minutes:30}") long idleTimeoutMinutes) {
+        this.maxEntries = maxEntries;
+        this.idleTimeoutNanos = TimeUnit.MINUTES.toNanos(idleTimeoutMinutes);
+    }
+
+    /**
+     * Removes and returns the cached state of a game, or null if it is not cached or has gone idle.
+     */
+    public synchronized LiveGame checkOut(Long gameId) {
+        LiveGame live = games.remove(gameId);
+        if (live == null || System.nanoTime() - live.lastUsedNanos > idleTimeoutNanos) {
+            return null;
+        }
+        return live;
+    }
+
+    public synchronized void checkIn(LiveGame live) {
+        long now = System.nanoTime();
+        live.lastUsedNanos = now;
+        live.modified = false;
+        games.put(live.getGame().getId(), live);
+        evictIdle(now);
+    }
+
+    /**
+     * Checks the game in once the current transaction commits; a rollback leaves it out of the cache.
+     */
+    public void checkInAfterCommit(LiveGame live) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            checkIn(live);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                checkIn(live);
+            }
+        });
+    }
+
+    public synchronized void evict(Long gameId) {
+        games.remove(gameId);
+    }
+
+    public synchronized int size() {
+        return games.size();
+    }
+
+    private void evictIdle(long now) {
+        Iterator<LiveGame> iterator = games.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().lastUsedNanos <= idleTimeoutNanos) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    /**
+     * A detached game together with its parsed board and move list. The game is never merged
+     * back; its mutable columns are written with {@code GameRepository.updateLiveState}.
+     */
+    public static final class LiveGame {
+        private final Game game;
+        private final Board board;
+        private final List<GameResponse.MoveInfo> moves;
+        private long lastUsedNanos;
+        private boolean modified;
+
+        public LiveGame(Game game, Board board, List<GameResponse.MoveInfo> moves) {
+            this.game = game;
+            this.board = board;
+            this.moves = new ArrayList<>(moves);
+        }
+
+        public Game getGame() {
+            return game;
+        }
+
+        public Board getBoard() {
+            return board;
+        }
+
+        public List<GameResponse.MoveInfo> getMoves() {
+            return moves;
+        }
+
+        public int getMoveCount() {
+            return moves.size();
+        }
+
+        /**
+         * Called before a move changes the board or game, after which the entry cannot be checked in
+         * again unless the change is committed.
+         */
+        public void markModified() {
+            modified = true;
+        }
+
+        public boolean isModified() {
+            return modified;
+        }
+    }
+}
@@ -3,256 +3,184 @@ package com.igknight.game.service;
 import com.igknight.game.engine.*;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class MoveGenerator {
 
+    private static final PieceType[] PROMOTION_PIECES = {
+        PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT
+    };
+
     public List<Move> generatePseudoLegalMoves(Board board, Color color) {
-        List<Move> moves = new ArrayList<>();
-        List<Position> pieces = board.getAllPiecesPositions(color);
-        
-        for (Position from : pieces) {
-            Piece piece = board.getPiece(from);
-            if (piece != null && piece.getColor() == color) {
-                moves.addAll(generatePseudoLegalMovesForPiece(board, from, piece));
-            }
-        }
-        
-        return moves;
+        MoveList moves = MoveList.scratch();
+        generatePseudoLegalMoves(board, color, moves);
+        return moves.toMoves();
     }
 
     public List<Move> generatePseudoLegalMovesForPiece(Board board, Position from, Piece piece) {
-        return switch (piece.getType()) {
-            case PAWN -> generatePawnMoves(board, from, piece.getColor());
-            case KNIGHT -> generateKnightMoves(board, from, piece.getColor());
-            case BISHOP -> generateBishopMoves(board, from, piece.getColor());
-            case ROOK -> generateRookMoves(board, from, piece.getColor());
-            case QUEEN -> generateQueenMoves(board, from, piece.getColor());
-            case KING -> generateKingMoves(board, from, piece.getColor());
-        };
+        MoveList moves = MoveList.scratch();
+        moves.clear();
+        generate(board, piece.getColor(), Bitboards.bit(from.getIndex()), moves);
+        return moves.toMoves();
     }
 
-    private List<Move> generatePawnMoves(Board board, Position from, Color color) {
-        List<Move> moves = new ArrayList<>();
-        int direction = color.getDirection();
-        int startRank = color.getPawnStartRank();
-        int promotionRank = color.getPromotionRank();
-
-        // Forward move
-        Position oneForward = from.move(direction, 0);
-        if (oneForward != null && board.getPiece(oneForward) == null) {
-            if (oneForward.getRank() == promotionRank) {
-                // Promotion
-                moves.add(new Move(from, oneForward, PieceType.QUEEN, false, false, false));
-                moves.add(new Move(from, oneForward, PieceType.ROOK, false, false, false));
-                moves.add(new Move(from, oneForward, PieceType.BISHOP, false, false, false));
-                moves.add(new Move(from, oneForward, PieceType.KNIGHT, false, false, false));
-            } else {
-                moves.add(new Move(from, oneForward, null, false, false, false));
-            }
-
-            // Double forward move from starting position
-            if (from.getRank() == startRank) {
-                Position twoForward = from.move(direction * 2, 0);
-                if (twoForward != null && board.getPiece(twoForward) == null) {
-                    moves.add(new Move(from, twoForward, null, false, false, false));
-                }
-            }
-        }
+    /**
+     * Replaces the contents of {@code moves} with the pseudo-legal moves of {@code color}
+     * (moves that may still leave the own king in check), without allocating.
+     */
+    public void generatePseudoLegalMoves(Board board, Color color, MoveList moves) {
+        moves.clear();
+        generate(board, color, board.getOccupancy(color), moves);
+    }
 
-        // Captures
-        for (int fileDelta : new int[]{-1, 1}) {
-            Position capturePos = from.move(direction, fileDelta);
-            if (capturePos != null) {
-                Piece targetPiece = board.getPiece(capturePos);
-                if (targetPiece != null && targetPiece.getColor() != color) {
-                    if (capturePos.getRank() == promotionRank) {
-                        // Capture with promotion
-                        moves.add(new Move(from, capturePos, PieceType.QUEEN, true, false, false));
-                        moves.add(new Move(from, capturePos, PieceType.ROOK, true, false, false));
-                        moves.add(new Move(from, capturePos, PieceType.BISHOP, true, false, false));
-                        moves.add(new Move(from, capturePos, PieceType.KNIGHT, true, false, false));
-                    } else {
-                        moves.add(new Move(from, capturePos, null, true, false, false));
-                    }
-                }
-                // En passant
-                else if (capturePos.equals(board.getEnPassantTarget())) {
-                    moves.add(new Move(from, capturePos, null, true, false, true));
-                }
-            }
+    public void generatePseudoLegalMovesForPiece(Board board, int from, MoveList moves) {
+        moves.clear();
+        Piece piece = board.getPiece(from);
+        if (piece != null) {
+            generate(board, piece.getColor(), Bitboards.bit(from), moves);
         }
-
-        return moves;
     }
 
-    private List<Move> generateKnightMoves(Board board, Position from, Color color) {
-        List<Move> moves = new ArrayList<>();
-        int[][] knightOffsets = {
-            {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
-            {1, 2}, {1, -2}, {-1, 2}, {-1, -2}
-        };
-
-        for (int[] offset : knightOffsets) {
-            Position to = from.move(offset[0], offset[1]);
-            if (to != null) {
-                Piece targetPiece = board.getPiece(to);
-                if (targetPiece == null) {
-                    moves.add(new Move(from, to));
-                } else if (targetPiece.getColor() != color) {
-                    moves.add(new Move(from, to, null, true, false, false));
+    private void generate(Board board, Color color, long fromMask, MoveList moves) {
+        long own = board.getOccupancy(color);
+        long enemies = board.getOccupancy(color.opposite());
+        long occupied = board.getOccupied();
+
+        long pieces = fromMask & own;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+
+            switch (board.getPiece(from).getType()) {
+                case PAWN -> generatePawnMoves(board, from, color, enemies, occupied, moves);
+                case KNIGHT -> addMoves(from, Attacks.knightAttacks(from) & ~own, enemies, moves);
+                case BISHOP -> addMoves(from, Attacks.bishopAttacks(from, occupied) & ~own, enemies, moves);
+                case ROOK -> addMoves(from, Attacks.rookAttacks(from, occupied) & ~own, enemies, moves);
+                case QUEEN -> addMoves(from, Attacks.queenAttacks(from, occupied) & ~own, enemies, moves);
+                case KING -> {
+                    addMoves(from, Attacks.kingAttacks(from) & ~own, enemies, moves);
+                    generateCastlingMoves(board, from, color, occupied, moves);
                 }
             }
         }
-
-        return moves;
-    }
-
-    private List<Move> generateBishopMoves(Board board, Position from, Color color) {
-        return generateSlidingMoves(board, from, color, new int[][]{{1, 1}, {1, -1}, {-1, 1}, {-1, -1}});
     }
 
-    private List<Move> generateRookMoves(Board board, Position from, Color color) {
-        return generateSlidingMoves(board, from, color, new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}});
-    }
-
-    private List<Move> generateQueenMoves(Board board, Position from, Color color) {
-        return generateSlidingMoves(board, from, color, new int[][]{
-            {1, 0}, {-1, 0}, {0, 1}, {0, -1},
-            {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
-        });
-    }
-
-    private List<Move> generateSlidingMoves(Board board, Position from, Color color, int[][] directions) {
-        List<Move> moves = new ArrayList<>();
-
-        for (int[] direction : directions) {
-            int rankDelta = direction[0];
-            int fileDelta = direction[1];
-            Position current = from;
+    private void generatePawnMoves(Board board, int from, Color color, long enemies, long occupied, MoveList moves) {
+        int rank = Bitboards.rankOf(from);
+        if (rank == color.getPromotionRank()) {
+            return;
+        }
 
-            while (true) {
-                current = current.move(rankDelta, fileDelta);
-                if (current == null) break;
+        // Forward move
+        int step = color == Color.WHITE ? 8 : -8;
+        int oneForward = from + step;
+        if ((occupied & Bitboards.bit(oneForward)) == 0) {
+            addPawnMove(from, oneForward, 0, color, moves);
 
-                Piece targetPiece = board.getPiece(current);
-                if (targetPiece == null) {
-                    moves.add(new Move(from, current));
-                } else {
-                    if (targetPiece.getColor() != color) {
-                        moves.add(new Move(from, current, null, true, false, false));
-                    }
-                    break;
-                }
+            // Double forward move from starting position
+            int twoForward = oneForward + step;
+            if (rank == color.getPawnStartRank() && (occupied & Bitboards.bit(twoForward)) == 0) {
+                moves.add(PackedMove.encode(from, twoForward, 0));
             }
         }
 
-        return moves;
-    }
+        // Captures
+        long attacks = Attacks.pawnAttacks(color, from);
+        long captures = attacks & enemies;
+        while (captures != 0) {
+            int to = Long.numberOfTrailingZeros(captures);
+            captures &= captures - 1;
+            addPawnMove(from, to, PackedMove.CAPTURE, color, moves);
+        }
 
-    private List<Move> generateKingMoves(Board board, Position from, Color color) {
-        List<Move> moves = new ArrayList<>();
-        int[][] kingOffsets = {
-            {1, 0}, {-1, 0}, {0, 1}, {0, -1},
-            {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
-        };
+        // En passant
+        int enPassantSquare = board.getEnPassantSquare();
+        if (enPassantSquare != Bitboards.NO_SQUARE && (attacks & Bitboards.bit(enPassantSquare) & ~occupied) != 0) {
+            moves.add(PackedMove.encode(from, enPassantSquare, PackedMove.CAPTURE | PackedMove.EN_PASSANT));
+        }
+    }
 
-        for (int[] offset : kingOffsets) {
-            Position to = from.move(offset[0], offset[1]);
-            if (to != null) {
-                Piece targetPiece = board.getPiece(to);
-                if (targetPiece == null) {
-                    moves.add(new Move(from, to));
-                } else if (targetPiece.getColor() != color) {
-                    moves.add(new Move(from, to, null, true, false, false));
-                }
+    private void addPawnMove(int from, int to, int flags, Color color, MoveList moves) {
+        if (Bitboards.rankOf(to) == color.getPromotionRank()) {
+            // Promotion
+            for (PieceType promotion : PROMOTION_PIECES) {
+                moves.add(PackedMove.encode(from, to, promotion, flags));
             }
+        } else {
+            moves.add(PackedMove.encode(from, to, flags));
         }
-
-        // Castling
-        moves.addAll(generateCastlingMoves(board, from, color));
-
-        return moves;
     }
 
-    private List<Move> generateCastlingMoves(Board board, Position from, Color color) {
-        List<Move> moves = new ArrayList<>();
-        Piece king = board.getPiece(from);
-        
-        if (king == null || king.hasMoved()) {
-            return moves;
+    private void generateCastlingMoves(Board board, int from, Color color, long occupied, MoveList moves) {
+        if (board.hasMoved(from)) {
+            return;
         }
 
         int rank = color.getStartRank();
 
-        // Kingside castling
-        if (board.canCastleKingside(color)) {
-            Position rookPos = new Position(rank, 8);
-            Piece rook = board.getPiece(rookPos);
-            if (rook != null && !rook.hasMoved()) {
-                // Check if squares between king and rook are empty
-                boolean pathClear = true;
-                for (int file = 6; file <= 7; file++) {
-                    if (board.getPiece(new Position(rank, file)) != null) {
-                        pathClear = false;
-                        break;
-                    }
-                }
-                if (pathClear) {
-                    Position kingsideCastlePos = new Position(rank, 7);
-                    moves.add(new Move(from, kingsideCastlePos, null, false, true, false));
-                }
-            }
+        // Kingside castling: rook unmoved and the squares between king and rook empty
+        int kingsideRook = Bitboards.square(rank, 8);
+        if (board.canCastleKingside(color)
+                && board.getPiece(kingsideRook) != null && !board.hasMoved(kingsideRook)
+                && (occupied & (Bitboards.bit(Bitboards.square(rank, 6)) | Bitboards.bit(Bitboards.square(rank, 7)))) == 0) {
+            moves.add(PackedMove.encode(from, Bitboards.square(rank, 7), PackedMove.CASTLING));
         }
 
         // Queenside castling
-        if (board.canCastleQueenside(color)) {
-            Position rookPos = new Position(rank, 1);
-            Piece rook = board.getPiece(rookPos);
-            if (rook != null && !rook.hasMoved()) {
-                // Check if squares between king and rook are empty
-                boolean pathClear = true;
-                for (int file = 2; file <= 4; file++) {
-                    if (board.getPiece(new Position(rank, file)) != null) {
-                        pathClear = false;
-                        break;
-                    }
-                }
-                if (pathClear) {
-                    Position queensideCastlePos = new Position(rank, 3);
-                    moves.add(new Move(from, queensideCastlePos, null, false, true, false));
-                }
-            }
+        int queensideRook = Bitboards.square(rank, 1);
+        if (board.canCastleQueenside(color)
+                && board.getPiece(queensideRook) != null && !board.hasMoved(queensideRook)
+                && (occupied & Attacks.between(queensideRook, Bitboards.square(rank, 5))) == 0) {
+            moves.add(PackedMove.encode(from, Bitboards.square(rank, 3), PackedMove.CASTLING));
         }
+    }
 
-        return moves;
+    private void addMoves(int from, long targets, long enemies, MoveList moves) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(PackedMove.encode(from, to, (enemies & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : 0));
+        }
     }
 
     public boolean isSquareAttacked(Board board, Position square, Color byColor) {
-        // Check if the square is attacked by any piece of the given color
-        List<Position> attackerPositions = board.getAllPiecesPositions(byColor);
-        
-        for (Position attackerPos : attackerPositions) {
-            Piece attacker = board.getPiece(attackerPos);
-            if (attacker == null) continue;
+        return isSquareAttacked(board, square.getIndex(), byColor);
+    }
 
-            List<Move> attackerMoves = generatePseudoLegalMovesForPiece(board, attackerPos, attacker);
-            for (Move move : attackerMoves) {
-                if (move.getTo().equals(square)) {
-                    // For pawns, only captures can attack a square
-                    if (attacker.getType() == PieceType.PAWN) {
-                        if (move.isCapture() || move.isEnPassant()) {
-                            return true;
-                        }
-                    } else {
-                        return true;
-                    }
-                }
-            }
+    public boolean isSquareAttacked(Board board, int square, Color byColor) {
+        // Look outwards from the target square: a piece attacks it exactly when
+        // the same piece type placed on the square would attack the piece back
+        if ((Attacks.pawnAttacks(byColor.opposite(), square) & board.getPieces(byColor, PieceType.PAWN)) != 0) {
+            return true;
         }
-        
-        return false;
+        if ((Attacks.knightAttacks(square) & board.getPieces(byColor, PieceType.KNIGHT)) != 0) {
+            return true;
+        }
+        if ((Attacks.kingAttacks(square) & board.getPieces(byColor, PieceType.KING)) != 0) {
+            return true;
+        }
+
+        long occupied = board.getOccupied();
+        long queens = board.getPieces(byColor, PieceType.QUEEN);
+        long diagonalAttackers = board.getPieces(byColor, PieceType.BISHOP) | queens;
+        if ((Attacks.bishopAttacks(square, occupied) & diagonalAttackers) != 0) {
+            return true;
+        }
+        long straightAttackers = board.getPieces(byColor, PieceType.ROOK) | queens;
+        return (Attacks.rookAttacks(square, occupied) & straightAttackers) != 0;
+    }
+
+    /**
+     * All pieces of {@code byColor} attacking {@code square}, with sliders traced through
+     * the given occupancy rather than the board's, so callers can test hypothetical positions.
+     */
+    public long getAttackers(Board board, int square, Color byColor, long occupied) {
+        long queens = board.getPieces(byColor, PieceType.QUEEN);
+        return (Attacks.pawnAttacks(byColor.opposite(), square) & board.getPieces(byColor, PieceType.PAWN))
+                | (Attacks.knightAttacks(square) & board.getPieces(byColor, PieceType.KNIGHT))
+                | (Attacks.kingAttacks(square) & board.getPieces(byColor, PieceType.KING))
+                | (Attacks.bishopAttacks(square, occupied) & (board.getPieces(byColor, PieceType.BISHOP) | queens))
+                | (Attacks.rookAttacks(square, occupied) & (board.getPieces(byColor, PieceType.ROOK) | queens));
     }
 }
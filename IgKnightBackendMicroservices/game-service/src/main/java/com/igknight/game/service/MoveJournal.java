@@ -0,0 +1,307 @@
+package com.igknight.game.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.igknight.game.engine.Color;
+import com.igknight.game.entity.GameMove;
+
+/**
+ * Append-only local log of moves that have not reached the database yet.
+ *
+ * Records go to numbered segment files, each record being its length, a CRC32
+ * and the serialized move. An append returns once the record is on disk;
+ * requests appending at the same time share one fsync. A segment is deleted
+ * when it has been rolled over and all of its records have been released,
+ * i.e. inserted into the database or abandoned with their transaction.
+ *
+ * Segments left over from a previous run are read back by {@link #recover()}.
+ * A crash in the middle of an append leaves a torn record at the end of the
+ * last segment, which fails its checksum and ends the recovery of that segment.
+ */
+@Component
+public class MoveJournal {
+
+    private static final String SEGMENT_PREFIX = "moves-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    // Record length and checksum
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final List<Path> recoveredSegments;
+
+    private final Object appendLock = new Object();
+    private Segment current;
+    private long nextSegmentNumber;
+
+    public MoveJournal(@Value("${chess.move-journal.directory:data/move-journal}") String directory,
+                       @Value("${chess.move-journal.segment-bytes:16777216}") long segmentBytes) throws IOException {
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(this.directory);
+        try (Stream<Path> files = Files.list(this.directory)) {
+            this.recoveredSegments = files.filter(MoveJournal::isSegment).sorted().toList();
+        }
+        this.nextSegmentNumber = recoveredSegments.isEmpty() ? 1 : segmentNumber(recoveredSegments.get(recoveredSegments.size() - 1)) + 1;
+    }
+
+    /**
+     * Writes a move to disk. The returned segment must be {@link Segment#release released} once the move
+     * is in the database or will never be.
+     */
+    public Segment append(long gameId, GameMove move) {
+        ByteBuffer record = ByteBuffer.wrap(encode(gameId, move));
+        Segment segment;
+        long end;
+        synchronized (appendLock) {
+            if (current == null || current.size >= segmentBytes) {
+                roll();
+            }
+            segment = current;
+            segment.outstanding.incrementAndGet();
+            try {
+                while (record.hasRemaining()) {
+                    segment.size += segment.channel.write(record);
+                }
+            } catch (IOException e) {
+                segment.release();
+                throw new UncheckedIOException("Failed to append move to journal " + segment.path, e);
+            }
+            end = segment.size;
+        }
+        try {
+            segment.sync(end);
+        } catch (IOException e) {
+            segment.release();
+            throw new UncheckedIOException("Failed to sync move journal " + segment.path, e);
+        }
+        return segment;
+    }
+
+    /**
+     * The moves journaled by a previous run, oldest first.
+     */
+    public List<Entry> recover() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Path segment : recoveredSegments) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(buffer.array(), buffer.position(), length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                entries.add(decode(buffer.array(), buffer.position(), length));
+                buffer.position(buffer.position() + length);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Deletes the segments of a previous run once their moves are in the database.
+     */
+    public void discardRecovered() throws IOException {
+        for (Path segment : recoveredSegments) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    public void close() {
+        synchronized (appendLock) {
+            if (current != null) {
+                current.seal();
+                current = null;
+            }
+        }
+    }
+
+    private void roll() {
+        if (current != null) {
+            current.seal();
+        }
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSegmentNumber++, SEGMENT_SUFFIX));
+        try {
+            current = new Segment(path, FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+            syncDirectory();
+        } catch (IOException e) {
+            current = null;
+            throw new UncheckedIOException("Failed to create move journal segment " + path, e);
+        }
+    }
+
+    // Makes the new file's directory entry durable; not supported on every platform
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    static byte[] encode(long gameId, GameMove move) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(0L);
+            out.writeLong(gameId);
+            out.writeInt(move.getMoveNumber());
+            out.writeByte(move.getPlayerColor().ordinal());
+            out.writeUTF(move.getFromSquare());
+            out.writeUTF(move.getToSquare());
+            out.writeUTF(move.getPieceType());
+            writeNullable(out, move.getPromotionPiece());
+            writeNullable(out, move.getSanNotation());
+            writeNullable(out, move.getFenAfterMove());
+            out.writeByte((isSet(move.getIsCapture()) ? 1 : 0)
+                    | (isSet(move.getIsCheck()) ? 2 : 0)
+                    | (isSet(move.getIsCheckmate()) ? 4 : 0)
+                    | (isSet(move.getIsCastling()) ? 8 : 0)
+                    | (isSet(move.getIsEnPassant()) ? 16 : 0));
+            out.writeInt(move.getTimeTaken() != null ? move.getTimeTaken() : -1);
+            out.writeLong(move.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(move.getCreatedAt().getNano());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record, HEADER_BYTES, record.length - HEADER_BYTES);
+        ByteBuffer.wrap(record).putInt(record.length - HEADER_BYTES).putInt((int) crc.getValue());
+        return record;
+    }
+
+    static Entry decode(byte[] record, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record, offset, length));
+        long gameId = in.readLong();
+        GameMove move = new GameMove();
+        move.setMoveNumber(in.readInt());
+        move.setPlayerColor(Color.values()[in.readByte()]);
+        move.setFromSquare(in.readUTF());
+        move.setToSquare(in.readUTF());
+        move.setPieceType(in.readUTF());
+        move.setPromotionPiece(readNullable(in));
+        move.setSanNotation(readNullable(in));
+        move.setFenAfterMove(readNullable(in));
+        int flags = in.readByte();
+        move.setIsCapture((flags & 1) != 0);
+        move.setIsCheck((flags & 2) != 0);
+        move.setIsCheckmate((flags & 4) != 0);
+        move.setIsCastling((flags & 8) != 0);
+        move.setIsEnPassant((flags & 16) != 0);
+        int timeTaken = in.readInt();
+        move.setTimeTaken(timeTaken >= 0 ? timeTaken : null);
+        move.setCreatedAt(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC));
+        return new Entry(gameId, move);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static boolean isSet(Boolean flag) {
+        return flag != null && flag;
+    }
+
+    public record Entry(long gameId, GameMove move) {
+    }
+
+    /**
+     * One journal file. Counts the moves written to it that are not yet in the database, and deletes itself
+     * when that reaches zero after it has been rolled over.
+     */
+    public static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicBoolean deleted = new AtomicBoolean();
+        private final Object syncLock = new Object();
+        private volatile long size;
+        private volatile boolean sealed;
+        private long synced;
+
+        private Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        public void release() {
+            if (outstanding.decrementAndGet() == 0 && sealed) {
+                delete();
+            }
+        }
+
+        // Whoever syncs first covers every record written so far, so waiting appenders usually find nothing to do
+        private void sync(long end) throws IOException {
+            synchronized (syncLock) {
+                if (synced >= end) {
+                    return;
+                }
+                long target = size;
+                channel.force(false);
+                synced = target;
+            }
+        }
+
+        private void seal() {
+            sealed = true;
+            if (outstanding.get() == 0) {
+                delete();
+            }
+        }
+
+        private void delete() {
+            if (!deleted.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete move journal segment " + path, e);
+            }
+        }
+    }
+}
@@ -1,241 +1,190 @@
 package com.igknight.game.service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.igknight.game.engine.Bitboards;
 import com.igknight.game.engine.Board;
 import com.igknight.game.engine.Color;
 import com.igknight.game.engine.Move;
+import com.igknight.game.engine.MoveList;
+import com.igknight.game.engine.PackedMove;
 import com.igknight.game.engine.Piece;
-import com.igknight.game.engine.PieceType;
 import com.igknight.game.engine.Position;
 
 @Service
 public class MoveValidator {
 
     private final MoveGenerator moveGenerator;
+    private final LegalMoveGenerator legalMoveGenerator;
+    private final LegalMoveStrategy strategy;
 
-    public MoveValidator(MoveGenerator moveGenerator) {
+    public MoveValidator(MoveGenerator moveGenerator,
+                         LegalMoveGenerator legalMoveGenerator,
+                         @Value("${chess.engine.legal-move-strategy:PIN_AWARE}") LegalMoveStrategy strategy) {
         this.moveGenerator = moveGenerator;
+        this.legalMoveGenerator = legalMoveGenerator;
+        this.strategy = strategy;
+    }
+
+    public LegalMoveStrategy getStrategy() {
+        return strategy;
     }
 
     public List<Move> generateLegalMoves(Board board, Color color) {
-        List<Move> pseudoLegalMoves = moveGenerator.generatePseudoLegalMoves(board, color);
-        return pseudoLegalMoves.stream()
-                .filter(move -> isMoveLegal(board, move, color))
-                .collect(Collectors.toList());
+        MoveList moves = MoveList.scratch();
+        generateLegalMoves(board, color, moves);
+        return moves.toMoves();
     }
 
-    public List<Move> generateLegalMovesForPiece(Board board, Position from) {
-        Piece piece = board.getPiece(from);
-        if (piece == null) {
-            return List.of();
+    /**
+     * Replaces the contents of {@code moves} with the legal moves of {@code color}. Neither
+     * strategy allocates, so callers that reuse their list (see {@link MoveList#forPly}) stay garbage-free.
+     */
+    public void generateLegalMoves(Board board, Color color, MoveList moves) {
+        if (strategy == LegalMoveStrategy.PIN_AWARE) {
+            legalMoveGenerator.generateLegalMoves(board, color, moves);
+            return;
         }
 
-        List<Move> pseudoLegalMoves = moveGenerator.generatePseudoLegalMovesForPiece(board, from, piece);
-        return pseudoLegalMoves.stream()
-                .filter(move -> isMoveLegal(board, move, piece.getColor()))
-                .collect(Collectors.toList());
+        moveGenerator.generatePseudoLegalMoves(board, color, moves);
+        retainLegalMoves(board, color, moves);
     }
 
-    public boolean isMoveLegal(Board board, Move move, Color color) {
-        // Make the move on a copy of the board
-        Board testBoard = board.copy();
-        executeMove(testBoard, move);
-
-        // Check if the king is in check after the move
-        Position kingPos = testBoard.findKing(color);
-        if (kingPos == null) {
-            return false;
-        }
-
-        return !moveGenerator.isSquareAttacked(testBoard, kingPos, color.opposite());
+    public List<Move> generateLegalMovesForPiece(Board board, Position from) {
+        MoveList moves = MoveList.scratch();
+        generateLegalMovesForPiece(board, from.getIndex(), moves);
+        return moves.toMoves();
     }
 
-    public boolean validateMove(Board board, Move move) {
-        Piece piece = board.getPiece(move.getFrom());
-        if (piece == null) {
-            return false;
+    public void generateLegalMovesForPiece(Board board, int from, MoveList moves) {
+        if (strategy == LegalMoveStrategy.PIN_AWARE) {
+            legalMoveGenerator.generateLegalMovesForPiece(board, from, moves);
+            return;
         }
 
-        // Check if it's the correct player's turn
-        if (piece.getColor() != board.getCurrentTurn()) {
-            return false;
+        moveGenerator.generatePseudoLegalMovesForPiece(board, from, moves);
+        Piece piece = board.getPiece(from);
+        if (piece != null) {
+            retainLegalMoves(board, piece.getColor(), moves);
         }
-
-        // Generate legal moves and check if the move is in the list
-        List<Move> legalMoves = generateLegalMovesForPiece(board, move.getFrom());
-        return legalMoves.stream().anyMatch(legalMove -> 
-            legalMove.getFrom().equals(move.getFrom()) &&
-            legalMove.getTo().equals(move.getTo()) &&
-            (legalMove.getPromotionPiece() == move.getPromotionPiece() ||
-             (legalMove.getPromotionPiece() == null && move.getPromotionPiece() == null))
-        );
     }
 
-    public void executeMove(Board board, Move move) {
-        Piece piece = board.getPiece(move.getFrom());
-        if (piece == null) {
-            return;
+    public boolean hasAnyLegalMove(Board board, Color color) {
+        if (strategy == LegalMoveStrategy.PIN_AWARE) {
+            return legalMoveGenerator.hasAnyLegalMove(board, color);
         }
 
-        // Reset en passant target
-        Position previousEnPassant = board.getEnPassantTarget();
-        board.setEnPassantTarget(null);
-
-        // Handle castling
-        if (move.isCastling()) {
-            executeCastling(board, move, piece.getColor());
-            piece.setMoved(true);
-            board.incrementHalfMoveClock();
-        }
-        // Handle en passant capture
-        else if (move.isEnPassant()) {
-            board.removePiece(move.getFrom());
-            board.setPiece(move.getTo(), piece);
-            // Remove the captured pawn
-            int capturedPawnRank = piece.getColor() == Color.WHITE ? move.getTo().getRank() - 1 : move.getTo().getRank() + 1;
-            board.removePiece(new Position(capturedPawnRank, move.getTo().getFile()));
-            piece.setMoved(true);
-            board.resetHalfMoveClock();
-        }
-        // Handle pawn promotion
-        else if (move.isPromotion()) {
-            board.removePiece(move.getFrom());
-            Piece promotedPiece = new Piece(move.getPromotionPiece(), piece.getColor(), true);
-            board.setPiece(move.getTo(), promotedPiece);
-            board.resetHalfMoveClock();
-        }
-        // Regular move
-        else {
-            boolean isCapture = board.getPiece(move.getTo()) != null;
-            boolean isPawnMove = piece.getType() == PieceType.PAWN;
-
-            board.removePiece(move.getFrom());
-            board.setPiece(move.getTo(), piece);
-            piece.setMoved(true);
-
-            // Set en passant target for double pawn move
-            if (isPawnMove && Math.abs(move.getTo().getRank() - move.getFrom().getRank()) == 2) {
-                int enPassantRank = (move.getFrom().getRank() + move.getTo().getRank()) / 2;
-                board.setEnPassantTarget(new Position(enPassantRank, move.getFrom().getFile()));
+        MoveList moves = MoveList.scratch();
+        moveGenerator.generatePseudoLegalMoves(board, color, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (isMoveLegal(board, moves.get(i), color)) {
+                return true;
             }
+        }
+        return false;
+    }
 
-            // Update halfmove clock
-            if (isCapture || isPawnMove) {
-                board.resetHalfMoveClock();
-            } else {
-                board.incrementHalfMoveClock();
+    // Compacts the list in place, keeping generation order
+    private void retainLegalMoves(Board board, Color color, MoveList moves) {
+        int kept = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (isMoveLegal(board, move, color)) {
+                moves.set(kept++, move);
             }
         }
+        moves.truncate(kept);
+    }
 
-        // Update castling rights
-        updateCastlingRights(board, move, piece);
+    public boolean isMoveLegal(Board board, Move move, Color color) {
+        return isMoveLegal(board, PackedMove.fromMove(move), color);
+    }
 
-        // Switch turn
-        board.setCurrentTurn(board.getCurrentTurn().opposite());
-        if (board.getCurrentTurn() == Color.WHITE) {
-            board.incrementFullMoveNumber();
+    public boolean isMoveLegal(Board board, int move, Color color) {
+        // Castling may not start in, pass through or end on an attacked square
+        if (PackedMove.isCastling(move)
+                && !canCastleThrough(board, color, Bitboards.fileOf(PackedMove.to(move)) == 7)) {
+            return false;
         }
 
-        // Add position to history for threefold repetition detection
-        board.addToPositionHistory(board.toFEN().split(" ")[0]);
-    }
-
-    private void executeCastling(Board board, Move move, Color color) {
-        int rank = color.getStartRank();
-        Position kingFrom = move.getFrom();
-        Position kingTo = move.getTo();
-
-        // Move king
-        Piece king = board.getPiece(kingFrom);
-        board.removePiece(kingFrom);
-        board.setPiece(kingTo, king);
-
-        // Move rook
-        if (kingTo.getFile() == 7) { // Kingside
-            Position rookFrom = new Position(rank, 8);
-            Position rookTo = new Position(rank, 6);
-            Piece rook = board.getPiece(rookFrom);
-            board.removePiece(rookFrom);
-            board.setPiece(rookTo, rook);
-            if (rook != null) {
-                rook.setMoved(true);
-            }
-        } else if (kingTo.getFile() == 3) { // Queenside
-            Position rookFrom = new Position(rank, 1);
-            Position rookTo = new Position(rank, 4);
-            Piece rook = board.getPiece(rookFrom);
-            board.removePiece(rookFrom);
-            board.setPiece(rookTo, rook);
-            if (rook != null) {
-                rook.setMoved(true);
+        // Make the move in place and take it back once the king has been checked
+        board.makeMove(move);
+        try {
+            int kingSquare = board.findKingSquare(color);
+            if (kingSquare == Bitboards.NO_SQUARE) {
+                return false;
             }
+            return !moveGenerator.isSquareAttacked(board, kingSquare, color.opposite());
+        } finally {
+            board.unmakeMove(move);
         }
     }
 
-    private void updateCastlingRights(Board board, Move move, Piece piece) {
-        Color color = piece.getColor();
+    public boolean validateMove(Board board, Move move) {
+        return findLegalMove(board, move) != null;
+    }
+
+    /**
+     * The generated legal move matching the requested from, to and promotion, or null if
+     * there is none. Requests only carry squares, so the castling, en passant and capture
+     * flags {@link Board#makeMove} relies on must come from the generated move.
+     */
+    public Move findLegalMove(Board board, Move requested) {
+        Piece piece = board.getPiece(requested.getFrom());
+        if (piece == null) {
+            return null;
+        }
 
-        // If king moves, lose all castling rights for that color
-        if (piece.getType() == PieceType.KING) {
-            board.setCastlingRights(color, false, false);
+        // Check if it's the correct player's turn
+        if (piece.getColor() != board.getCurrentTurn()) {
+            return null;
         }
 
-        // If rook moves from starting position, lose castling right on that side
-        if (piece.getType() == PieceType.ROOK) {
-            int startRank = color.getStartRank();
-            if (move.getFrom().equals(new Position(startRank, 1))) {
-                board.setCastlingRights(color, board.canCastleKingside(color), false);
-            } else if (move.getFrom().equals(new Position(startRank, 8))) {
-                board.setCastlingRights(color, false, board.canCastleQueenside(color));
+        int wanted = PackedMove.withoutFlags(PackedMove.fromMove(requested));
+        MoveList moves = MoveList.scratch();
+        generateLegalMovesForPiece(board, requested.getFrom().getIndex(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (PackedMove.withoutFlags(moves.get(i)) == wanted) {
+                return PackedMove.toMove(moves.get(i));
             }
         }
+        return null;
+    }
 
-        // If rook is captured, opponent loses castling right on that side
-        Color opponentColor = color.opposite();
-        int opponentStartRank = opponentColor.getStartRank();
-        if (move.getTo().equals(new Position(opponentStartRank, 1))) {
-            board.setCastlingRights(opponentColor, board.canCastleKingside(opponentColor), false);
-        } else if (move.getTo().equals(new Position(opponentStartRank, 8))) {
-            board.setCastlingRights(opponentColor, false, board.canCastleQueenside(opponentColor));
+    public void executeMove(Board board, Move move) {
+        if (board.getPiece(move.getFrom()) == null) {
+            return;
         }
+
+        // The board records the position's Zobrist key for threefold repetition detection
+        board.makeMove(move);
     }
 
     public boolean isKingInCheck(Board board, Color color) {
-        Position kingPos = board.findKing(color);
-        if (kingPos == null) {
+        int kingSquare = board.findKingSquare(color);
+        if (kingSquare == Bitboards.NO_SQUARE) {
             return false;
         }
-        return moveGenerator.isSquareAttacked(board, kingPos, color.opposite());
+        return moveGenerator.isSquareAttacked(board, kingSquare, color.opposite());
     }
 
     public boolean canCastleThrough(Board board, Color color, boolean kingside) {
         int rank = color.getStartRank();
-        Position kingPos = board.findKing(color);
-        
-        if (kingPos == null || isKingInCheck(board, color)) {
+
+        if (board.findKingSquare(color) == Bitboards.NO_SQUARE || isKingInCheck(board, color)) {
             return false;
         }
 
         // Check if squares the king moves through are not under attack
-        if (kingside) {
-            for (int file = 6; file <= 7; file++) {
-                Position square = new Position(rank, file);
-                if (moveGenerator.isSquareAttacked(board, square, color.opposite())) {
-                    return false;
-                }
-            }
-        } else {
-            // Queenside: king moves from e-file (5) to c-file (3), passing through d-file (4) and c-file (3)
-            // FIDE rules require checking that d-file, c-file, AND b-file are not under attack
-            for (int file = 2; file <= 4; file++) {
-                Position square = new Position(rank, file);
-                if (moveGenerator.isSquareAttacked(board, square, color.opposite())) {
-                    return false;
-                }
+        // Queenside the king only crosses d and c; b only has to be empty, which generation checks
+        int fromFile = kingside ? 6 : 3;
+        int toFile = kingside ? 7 : 4;
+        for (int file = fromFile; file <= toFile; file++) {
+            if (moveGenerator.isSquareAttacked(board, Bitboards.square(rank, file), color.opposite())) {
+                return false;
             }
         }
 
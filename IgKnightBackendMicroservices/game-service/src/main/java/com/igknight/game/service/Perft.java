@@ -0,0 +1,79 @@
+package com.igknight.game.service;
+
+import com.igknight.game.engine.Board;
+import com.igknight.game.engine.Move;
+import com.igknight.game.engine.MoveList;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft").
+ *
+ * The counts for well-known positions are published, so any difference points
+ * at a move generation bug; {@link #divide} splits the total by root move to
+ * narrow down which subtree disagrees with a reference engine.
+ */
+public class Perft {
+
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    public static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    // Rook endgame with en passant discovered checks along the fifth rank
+    public static final String EN_PASSANT_ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    // Promotions, under-promotions and castling rights lost by capture
+    public static final String PROMOTIONS = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    public static final String PROMOTION_CAPTURES = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+    public static final String MIDDLEGAME = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+
+    private final MoveValidator moveValidator;
+
+    public Perft(MoveValidator moveValidator) {
+        this.moveValidator = moveValidator;
+    }
+
+    public long perft(Board board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        // One list per remaining depth, so the recursion never allocates
+        MoveList moves = MoveList.forPly(depth);
+        moveValidator.generateLegalMoves(board, board.getCurrentTurn(), moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            nodes += perft(board, depth - 1);
+            board.unmakeMove(move);
+        }
+        return nodes;
+    }
+
+    /**
+     * Leaf counts per root move in long algebraic notation, in generation order.
+     */
+    public Map<String, Long> divide(Board board, int depth) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Move move : moveValidator.generateLegalMoves(board, board.getCurrentTurn())) {
+            board.makeMove(move);
+            counts.put(move.toAlgebraic(), perft(board, depth - 1));
+            board.unmakeMove(move);
+        }
+        return counts;
+    }
+
+    public static String formatDivide(Map<String, Long> counts) {
+        StringBuilder report = new StringBuilder();
+        long total = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            report.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+            total += entry.getValue();
+        }
+        report.append("Nodes searched: ").append(total).append('\n');
+        return report.toString();
+    }
+}
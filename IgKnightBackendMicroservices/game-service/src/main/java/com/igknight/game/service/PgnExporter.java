@@ -0,0 +1,230 @@
+package com.igknight.game.service;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.igknight.game.engine.Bitboards;
+import com.igknight.game.engine.Board;
+import com.igknight.game.engine.GameStatus;
+import com.igknight.game.engine.MoveList;
+import com.igknight.game.engine.PackedMove;
+import com.igknight.game.engine.Piece;
+import com.igknight.game.engine.PieceType;
+import com.igknight.game.entity.Game;
+import com.igknight.game.entity.GameMove;
+
+/**
+ * Writes games as PGN.
+ *
+ * Movetext is rebuilt by replaying the game's packed move list from the start
+ * position, so a game needs nothing but its own row; SAN is derived from the
+ * legal moves of each position, with file or rank disambiguation. Games that
+ * predate the move list, or whose move list does not replay, fall back to the
+ * SAN stored with their moves.
+ */
+@Component
+public class PgnExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(PgnExporter.class);
+    private static final DateTimeFormatter PGN_DATE = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+    private static final int MAX_LINE_LENGTH = 80;
+
+    private final MoveValidator moveValidator;
+
+    public PgnExporter(MoveValidator moveValidator) {
+        this.moveValidator = moveValidator;
+    }
+
+    /**
+     * Writes one game, followed by the blank line that separates games in a PGN file.
+     *
+     * @param storedMoves supplies the moves of a game without a usable move list; not called otherwise
+     */
+    public void write(Game game, Appendable out, StoredMoves storedMoves) throws IOException {
+        String result = result(game);
+        writeTag(out, "Event", Boolean.TRUE.equals(game.getIsRated()) ? "Rated game" : "Casual game");
+        writeTag(out, "Site", "IgKnight");
+        writeTag(out, "Date", game.getCreatedAt() != null ? PGN_DATE.format(game.getCreatedAt()) : "????.??.??");
+        writeTag(out, "Round", "-");
+        writeTag(out, "White", game.getWhitePlayerUsername() != null ? game.getWhitePlayerUsername() : "?");
+        writeTag(out, "Black", game.getBlackPlayerUsername() != null ? game.getBlackPlayerUsername() : "?");
+        writeTag(out, "Result", result);
+        if (game.getTimeControl() != null) {
+            int increment = game.getTimeIncrement() != null ? game.getTimeIncrement() : 0;
+            writeTag(out, "TimeControl", increment > 0 ? game.getTimeControl() + "+" + increment : String.valueOf(game.getTimeControl()));
+        }
+        writeTag(out, "Termination", game.getStatus().name());
+        out.append('\n');
+
+        // Replayed in full before anything is written, so a bad move list cannot leave half a game behind
+        List<String> replayed = game.getMoveListBytes() != null ? replay(game) : null;
+        MovetextWriter movetext = new MovetextWriter(out);
+        if (replayed != null) {
+            for (int i = 0; i < replayed.size(); i++) {
+                movetext.move(i + 1, replayed.get(i));
+            }
+        } else {
+            for (GameMove move : storedMoves.load(game.getId())) {
+                movetext.move(move.getMoveNumber(), move.getSanNotation() != null
+                        ? move.getSanNotation()
+                        : move.getFromSquare() + move.getToSquare());
+            }
+        }
+        movetext.token(result);
+        out.append("\n\n");
+    }
+
+    // SAN of each move in the game's move list, or null if one of them is not legal where it was played
+    private List<String> replay(Game game) {
+        int[] moves = game.getMoveList();
+        List<String> sans = new ArrayList<>(moves.length);
+        Board board = new Board();
+        MoveList legalMoves = new MoveList();
+        StringBuilder san = new StringBuilder(8);
+        for (int i = 0; i < moves.length; i++) {
+            moveValidator.generateLegalMoves(board, board.getCurrentTurn(), legalMoves);
+            int move = findMove(legalMoves, moves[i]);
+            if (move == 0) {
+                log.warn("Move {} {} of game {} is not legal, exporting its stored moves instead",
+                        i + 1, PackedMove.toAlgebraic(moves[i]), game.getId());
+                return null;
+            }
+
+            san.setLength(0);
+            appendSan(board, move, legalMoves, san);
+            board.makeMove(move);
+            if (moveValidator.isKingInCheck(board, board.getCurrentTurn())) {
+                moveValidator.generateLegalMoves(board, board.getCurrentTurn(), legalMoves);
+                san.append(legalMoves.isEmpty() ? '#' : '+');
+            }
+            sans.add(san.toString());
+        }
+        return sans;
+    }
+
+    // The generated move carries the flags the stored move lacks; a1a1 (0) is never legal
+    private int findMove(MoveList legalMoves, int stored) {
+        for (int i = 0; i < legalMoves.size(); i++) {
+            if (PackedMove.withoutFlags(legalMoves.get(i)) == stored) {
+                return legalMoves.get(i);
+            }
+        }
+        return 0;
+    }
+
+    private void appendSan(Board board, int move, MoveList legalMoves, StringBuilder san) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        if (PackedMove.isCastling(move)) {
+            san.append(Bitboards.fileOf(to) == 7 ? "O-O" : "O-O-O");
+            return;
+        }
+
+        Piece piece = board.getPiece(from);
+        boolean capture = board.getPiece(to) != null || PackedMove.isEnPassant(move);
+        if (piece.getType() == PieceType.PAWN) {
+            if (capture) {
+                san.append(fileLetter(from));
+            }
+        } else {
+            san.append(piece.getType().getNotation());
+            appendDisambiguation(board, move, piece, legalMoves, san);
+        }
+        if (capture) {
+            san.append('x');
+        }
+        san.append(fileLetter(to)).append(Bitboards.rankOf(to));
+        if (PackedMove.isPromotion(move)) {
+            san.append('=').append(PackedMove.promotionPiece(move).getNotation());
+        }
+    }
+
+    private void appendDisambiguation(Board board, int move, Piece piece, MoveList legalMoves, StringBuilder san) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int other = legalMoves.get(i);
+            int otherFrom = PackedMove.from(other);
+            if (otherFrom == from || PackedMove.to(other) != to || board.getPiece(otherFrom) != piece) {
+                continue;
+            }
+            ambiguous = true;
+            sameFile |= Bitboards.fileOf(otherFrom) == Bitboards.fileOf(from);
+            sameRank |= Bitboards.rankOf(otherFrom) == Bitboards.rankOf(from);
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            san.append(fileLetter(from));
+        } else if (!sameRank) {
+            san.append(Bitboards.rankOf(from));
+        } else {
+            san.append(fileLetter(from)).append(Bitboards.rankOf(from));
+        }
+    }
+
+    private static char fileLetter(int square) {
+        return (char) ('a' + Bitboards.fileOf(square) - 1);
+    }
+
+    private static String result(Game game) {
+        GameStatus status = game.getStatus();
+        if (status.name().startsWith("DRAW") || status == GameStatus.STALEMATE) {
+            return "1/2-1/2";
+        }
+        if (game.getWinnerId() == null) {
+            return "*";
+        }
+        return game.getWinnerId().equals(game.getWhitePlayerId()) ? "1-0" : "0-1";
+    }
+
+    private static void writeTag(Appendable out, String name, String value) throws IOException {
+        out.append('[').append(name).append(" \"")
+                .append(value.replace("\\", "\\\\").replace("\"", "\\\""))
+                .append("\"]\n");
+    }
+
+    @FunctionalInterface
+    public interface StoredMoves {
+        List<GameMove> load(Long gameId);
+    }
+
+    // Emits move numbers and SAN tokens, wrapping lines at 80 characters
+    private static final class MovetextWriter {
+        private final Appendable out;
+        private int lineLength;
+
+        private MovetextWriter(Appendable out) {
+            this.out = out;
+        }
+
+        private void move(int moveNumber, CharSequence san) throws IOException {
+            if (moveNumber % 2 == 1) {
+                token((moveNumber + 1) / 2 + ".");
+            }
+            token(san);
+        }
+
+        private void token(CharSequence token) throws IOException {
+            if (lineLength > 0 && lineLength + 1 + token.length() > MAX_LINE_LENGTH) {
+                out.append('\n');
+                lineLength = 0;
+            } else if (lineLength > 0) {
+                out.append(' ');
+                lineLength++;
+            }
+            out.append(token);
+            lineLength += token.length();
+        }
+    }
+}
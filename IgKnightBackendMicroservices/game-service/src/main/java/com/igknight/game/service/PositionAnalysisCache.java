@@ -0,0 +1,61 @@
+package com.igknight.game.service;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fixed-size table of position analyses, indexed by Zobrist key.
+ *
+ * Each key maps to a single slot, and a new analysis simply replaces whatever
+ * occupies its slot, so the table never grows and needs no locking: slots are
+ * read and written as whole immutable entries. The full key is kept with each
+ * entry, and a lookup only hits when it matches.
+ */
+@Component
+public class PositionAnalysisCache {
+
+    private final AtomicReferenceArray<PositionAnalysis> slots;
+    private final int mask;
+
+    public PositionAnalysisCache(@Value("${chess.position-cache.entries:65536}") int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * The analysis of the position with this key, or null if it is not in the table.
+     */
+    public PositionAnalysis get(long key) {
+        PositionAnalysis analysis = slots.get(slotFor(key));
+        return analysis != null && analysis.key() == key ? analysis : null;
+    }
+
+    public void put(PositionAnalysis analysis) {
+        slots.set(slotFor(analysis.key()), analysis);
+    }
+
+    // The low bits of a Zobrist key are as random as the rest; fold in the high ones anyway
+    private int slotFor(long key) {
+        return Long.hashCode(key) & mask;
+    }
+
+    /**
+     * What a position alone determines, regardless of how it was reached: the fifty-move and repetition
+     * draws depend on the game's history and are not part of it.
+     *
+     * @param legalMoveCount legal moves of the side to move
+     */
+    public record PositionAnalysis(long key, boolean inCheck, int legalMoveCount, boolean insufficientMaterial) {
+
+        public boolean isCheckmate() {
+            return inCheck && legalMoveCount == 0;
+        }
+
+        public boolean isStalemate() {
+            return !inCheck && legalMoveCount == 0;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.igknight.game.benchmark;
+
+import com.igknight.game.service.LegalMoveGenerator;
+import com.igknight.game.service.LegalMoveStrategy;
+import com.igknight.game.service.MoveGenerator;
+import com.igknight.game.service.MoveValidator;
+import com.igknight.game.service.Perft;
+
+/**
+ * Named positions shared by the benchmarks, so they can be selected with {@code -p position=...}.
+ */
+final class BenchmarkPositions {
+
+    static final String FOOLS_MATE = "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3";
+    static final String STALEMATE = "7k/5Q2/6K1/8/8/8/8/8 b - - 0 1";
+
+    private BenchmarkPositions() {
+    }
+
+    static String fen(String name) {
+        return switch (name) {
+            case "START_POSITION" -> Perft.START_POSITION;
+            case "KIWIPETE" -> Perft.KIWIPETE;
+            case "EN_PASSANT_ENDGAME" -> Perft.EN_PASSANT_ENDGAME;
+            case "PROMOTIONS" -> Perft.PROMOTIONS;
+            case "PROMOTION_CAPTURES" -> Perft.PROMOTION_CAPTURES;
+            case "MIDDLEGAME" -> Perft.MIDDLEGAME;
+            case "FOOLS_MATE" -> FOOLS_MATE;
+            case "STALEMATE" -> STALEMATE;
+            default -> throw new IllegalArgumentException("Unknown benchmark position: " + name);
+        };
+    }
+
+    static MoveValidator moveValidator(LegalMoveStrategy strategy) {
+        MoveGenerator moveGenerator = new MoveGenerator();
+        return new MoveValidator(moveGenerator, new LegalMoveGenerator(moveGenerator), strategy);
+    }
+}
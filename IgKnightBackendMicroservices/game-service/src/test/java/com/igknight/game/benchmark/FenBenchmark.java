@@ -0,0 +1,150 @@
+package com.igknight.game.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.igknight.game.engine.Board;
+import com.igknight.game.engine.Color;
+import com.igknight.game.engine.FenCodec;
+import com.igknight.game.engine.Piece;
+import com.igknight.game.engine.Position;
+
+/**
+ * FenCodec against the split-based parser and Position-per-square writer it replaced.
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class FenBenchmark {
+
+    @Param({"START_POSITION", "KIWIPETE", "MIDDLEGAME"})
+    public String position;
+
+    private String fen;
+    private Board board;
+    private StringBuilder buffer;
+
+    @Setup
+    public void setUp() {
+        fen = BenchmarkPositions.fen(position);
+        board = Board.fromFEN(fen);
+        buffer = new StringBuilder(128);
+    }
+
+    @Benchmark
+    public Board parseCodec() {
+        return FenCodec.read(fen);
+    }
+
+    @Benchmark
+    public Board parseLegacy() {
+        return legacyFromFEN(fen);
+    }
+
+    @Benchmark
+    public int writeCodecReusedBuffer() {
+        buffer.setLength(0);
+        FenCodec.write(board, buffer);
+        return buffer.length();
+    }
+
+    @Benchmark
+    public String writeCodecToString() {
+        return board.toFEN();
+    }
+
+    @Benchmark
+    public String writeLegacy() {
+        return legacyToFEN(board);
+    }
+
+    // The previous Board.fromFEN, expressed through the public Board API
+    private static Board legacyFromFEN(String fen) {
+        Board board = new Board();
+        for (int square = 0; square < 64; square++) {
+            board.removePiece(square);
+        }
+
+        String[] parts = fen.trim().split("\\s+");
+        String[] ranks = parts[0].split("/");
+        for (int i = 0; i < ranks.length; i++) {
+            int rank = 8 - i;
+            int file = 1;
+            for (char c : ranks[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    file += Character.getNumericValue(c);
+                } else {
+                    board.setPiece(Position.of(rank, file), Piece.fromFEN(c));
+                    file++;
+                }
+            }
+        }
+
+        board.setCurrentTurn(parts[1].equals("w") ? Color.WHITE : Color.BLACK);
+        board.setCastlingRights(Color.WHITE, parts[2].contains("K"), parts[2].contains("Q"));
+        board.setCastlingRights(Color.BLACK, parts[2].contains("k"), parts[2].contains("q"));
+        board.setEnPassantTarget(parts[3].equals("-") ? null : Position.fromAlgebraic(parts[3]));
+        if (parts.length >= 5) {
+            board.setHalfMoveClock(Integer.parseInt(parts[4]));
+        }
+        if (parts.length >= 6) {
+            board.setFullMoveNumber(Integer.parseInt(parts[5]));
+        }
+        return board;
+    }
+
+    // The previous Board.toFEN
+    private static String legacyToFEN(Board board) {
+        StringBuilder fen = new StringBuilder();
+        for (int rank = 8; rank >= 1; rank--) {
+            int emptyCount = 0;
+            for (int file = 1; file <= 8; file++) {
+                Piece piece = board.getPiece(Position.of(rank, file));
+                if (piece == null) {
+                    emptyCount++;
+                } else {
+                    if (emptyCount > 0) {
+                        fen.append(emptyCount);
+                        emptyCount = 0;
+                    }
+                    fen.append(piece.toFEN());
+                }
+            }
+            if (emptyCount > 0) {
+                fen.append(emptyCount);
+            }
+            if (rank > 1) {
+                fen.append("/");
+            }
+        }
+
+        fen.append(" ").append(board.getCurrentTurn() == Color.WHITE ? "w" : "b");
+
+        fen.append(" ");
+        StringBuilder castling = new StringBuilder();
+        if (board.canCastleKingside(Color.WHITE)) castling.append("K");
+        if (board.canCastleQueenside(Color.WHITE)) castling.append("Q");
+        if (board.canCastleKingside(Color.BLACK)) castling.append("k");
+        if (board.canCastleQueenside(Color.BLACK)) castling.append("q");
+        fen.append(castling.length() > 0 ? castling.toString() : "-");
+
+        Position enPassant = board.getEnPassantTarget();
+        fen.append(" ").append(enPassant != null ? enPassant.toAlgebraic() : "-");
+
+        fen.append(" ").append(board.getHalfMoveClock()).append(" ").append(board.getFullMoveNumber());
+        return fen.toString();
+    }
+}
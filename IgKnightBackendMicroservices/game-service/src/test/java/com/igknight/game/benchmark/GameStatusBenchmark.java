@@ -0,0 +1,50 @@
+package com.igknight.game.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.igknight.game.engine.Board;
+import com.igknight.game.engine.GameStatus;
+import com.igknight.game.service.GameStateService;
+import com.igknight.game.service.LegalMoveStrategy;
+
+/**
+ * Latency of the end-of-game check run after every move.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class GameStatusBenchmark {
+
+    @Param({"START_POSITION", "KIWIPETE", "MIDDLEGAME", "FOOLS_MATE", "STALEMATE"})
+    public String position;
+
+    @Param({"PIN_AWARE", "PSEUDO_LEGAL_FILTER"})
+    public LegalMoveStrategy strategy;
+
+    private GameStateService gameStateService;
+    private Board board;
+
+    @Setup
+    public void setUp() {
+        gameStateService = new GameStateService(BenchmarkPositions.moveValidator(strategy));
+        board = Board.fromFEN(BenchmarkPositions.fen(position));
+    }
+
+    @Benchmark
+    public GameStatus determineGameStatus() {
+        return gameStateService.determineGameStatus(board);
+    }
+}
@@ -0,0 +1,71 @@
+package com.igknight.game.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.igknight.game.engine.Board;
+import com.igknight.game.service.LegalMoveStrategy;
+import com.igknight.game.service.Perft;
+
+/**
+ * Move generator throughput.
+ *
+ * The {@code nodes} secondary metric is leaf nodes per second. With {@code -prof gc},
+ * {@code gc.alloc.rate.norm} is bytes allocated per perft call; divide it by the node
+ * count of the position and depth to get bytes per node.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class PerftBenchmark {
+
+    @Param({"START_POSITION", "KIWIPETE", "EN_PASSANT_ENDGAME", "PROMOTIONS"})
+    public String position;
+
+    @Param({"3"})
+    public int depth;
+
+    @Param({"PIN_AWARE", "PSEUDO_LEGAL_FILTER"})
+    public LegalMoveStrategy strategy;
+
+    private Perft perft;
+    private Board board;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class NodeCounter {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        perft = new Perft(BenchmarkPositions.moveValidator(strategy));
+        board = Board.fromFEN(BenchmarkPositions.fen(position));
+    }
+
+    @Benchmark
+    public long perft(NodeCounter counter) {
+        long nodes = perft.perft(board, depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+}
@@ -0,0 +1,109 @@
+package com.igknight.game.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.igknight.game.engine.Color;
+import com.igknight.game.engine.GameStatus;
+import com.igknight.game.entity.Game;
+import com.igknight.game.entity.GameMove;
+
+/**
+ * Counts the statements issued when a user's games are loaded together with their moves.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class GameRepositoryTest {
+
+    private static final Long USER_ID = 1L;
+    private static final int GAMES = 150;
+    private static final int MOVES_PER_GAME = 4;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < GAMES; i++) {
+            Game game = new Game(USER_ID, "white");
+            game.setBlackPlayerId(2L + i);
+            game.setStatus(GameStatus.IN_PROGRESS);
+            // Inserted out of order, to check that fetched moves still come back by move number
+            for (int moveNumber = MOVES_PER_GAME; moveNumber >= 1; moveNumber--) {
+                game.addMove(move(moveNumber));
+            }
+            entityManager.persist(game);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void allGamesWithMovesTakeOneStatement() {
+        List<Game> games = gameRepository.findAllGamesWithMovesByUserId(USER_ID);
+
+        assertMovesLoaded(games);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void activeGamesWithMovesTakeOneStatement() {
+        List<Game> games = gameRepository.findActiveGamesWithMovesByUserId(USER_ID,
+                List.of(GameStatus.WAITING, GameStatus.IN_PROGRESS));
+
+        assertMovesLoaded(games);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void lazyMovesAreFetchedInBatches() {
+        List<Game> games = gameRepository.findAllGamesByUserId(USER_ID);
+
+        assertMovesLoaded(games);
+        // The games, then the moves of 100 games at a time
+        assertEquals(1 + (GAMES + 99) / 100, statistics.getPrepareStatementCount());
+    }
+
+    private static void assertMovesLoaded(List<Game> games) {
+        assertEquals(GAMES, games.size());
+        for (Game game : games) {
+            List<GameMove> moves = game.getMoves();
+            assertEquals(MOVES_PER_GAME, moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                assertEquals(i + 1, moves.get(i).getMoveNumber());
+            }
+        }
+    }
+
+    private static GameMove move(int moveNumber) {
+        GameMove move = new GameMove();
+        move.setMoveNumber(moveNumber);
+        move.setPlayerColor(moveNumber % 2 == 1 ? Color.WHITE : Color.BLACK);
+        move.setFromSquare("e2");
+        move.setToSquare("e4");
+        move.setPieceType("PAWN");
+        move.setCreatedAt(LocalDateTime.now());
+        return move;
+    }
+}
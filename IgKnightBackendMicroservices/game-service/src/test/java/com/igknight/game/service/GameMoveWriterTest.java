@@ -0,0 +1,169 @@
+package com.igknight.game.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.igknight.game.entity.Game;
+import com.igknight.game.entity.GameMove;
+import com.igknight.game.repository.GameMoveRepository;
+import com.igknight.game.repository.GameRepository;
+
+/**
+ * Write-behind of moves against a stubbed database: transient failures are retried, a move the database
+ * rejects is quarantined without holding up the others, and journaled moves are restored on the next start.
+ */
+class GameMoveWriterTest {
+
+    private static final long GAME_ID = 42L;
+    private static final int POISON_MOVE = 2;
+
+    @TempDir
+    Path directory;
+
+    private final GameRepository gameRepository = mock(GameRepository.class);
+    private final GameMoveRepository gameMoveRepository = mock(GameMoveRepository.class);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+    // Move numbers in the stubbed chess_moves table
+    private final List<Integer> stored = new ArrayList<>();
+    private final AtomicInteger transientFailures = new AtomicInteger();
+    private final Game game = new Game(1L, "white");
+
+    @BeforeEach
+    void setUp() {
+        game.setId(GAME_ID);
+        when(gameRepository.getReferenceById(anyLong())).thenReturn(game);
+        when(gameRepository.findById(GAME_ID)).thenReturn(Optional.of(game));
+        when(gameMoveRepository.findMoveNumbersByGameId(GAME_ID)).thenAnswer(invocation -> storedMoves());
+        doAnswer(invocation -> {
+            Iterable<GameMove> moves = invocation.getArgument(0);
+            if (transientFailures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new TransientDataAccessResourceException("Connection reset");
+            }
+            for (GameMove move : moves) {
+                if (move.getMoveNumber() == POISON_MOVE) {
+                    throw new DataIntegrityViolationException("String or binary data would be truncated");
+                }
+            }
+            synchronized (stored) {
+                moves.forEach(move -> stored.add(move.getMoveNumber()));
+            }
+            return moves;
+        }).when(gameMoveRepository).saveAll(any());
+    }
+
+    @Test
+    void quarantinesRejectedMoveAndStoresTheRest() throws Exception {
+        MoveJournal journal = new MoveJournal(directory.toString(), 1 << 20);
+        GameMoveWriter writer = writer(journal);
+        writer.start();
+        for (int moveNumber = 1; moveNumber <= 3; moveNumber++) {
+            writer.write(GAME_ID, MoveJournalTest.move(moveNumber, "e2", "e4"));
+        }
+
+        waitUntil(() -> writer.pendingMoves(GAME_ID).isEmpty());
+        assertEquals(List.of(1, 3), storedMoves());
+        writer.stop();
+
+        // The quarantined move is still journaled; the next run tries it again and keeps it journaled
+        game.setMoveCount(3);
+        GameMoveWriter restarted = writer(new MoveJournal(directory.toString(), 1 << 20));
+        restarted.start();
+        restarted.stop();
+        assertEquals(List.of(1, 3), storedMoves());
+
+        List<MoveJournal.Entry> entries = new MoveJournal(directory.toString(), 1 << 20).recover();
+        assertEquals(1, entries.size());
+        assertEquals(POISON_MOVE, entries.get(0).move().getMoveNumber());
+    }
+
+    @Test
+    void retriesTransientFailures() throws Exception {
+        transientFailures.set(2);
+        GameMoveWriter writer = writer(new MoveJournal(directory.toString(), 1 << 20));
+        writer.start();
+        writer.write(GAME_ID, MoveJournalTest.move(1, "e2", "e4"));
+
+        waitUntil(() -> writer.pendingMoves(GAME_ID).isEmpty());
+        writer.stop();
+        assertEquals(List.of(1), storedMoves());
+        assertEquals(0, transientFailures.get());
+    }
+
+    @Test
+    void replaysCommittedMovesMissingFromDatabase() throws Exception {
+        // A crash after two moves were journaled; the third belongs to a transaction that never committed
+        MoveJournal crashed = new MoveJournal(directory.toString(), 1 << 20);
+        crashed.append(GAME_ID, MoveJournalTest.move(1, "e2", "e4"));
+        crashed.append(GAME_ID, MoveJournalTest.move(3, "g1", "f3"));
+        crashed.append(GAME_ID, MoveJournalTest.move(4, "b8", "c6"));
+        crashed.close();
+        game.setMoveCount(3);
+
+        GameMoveWriter writer = writer(new MoveJournal(directory.toString(), 1 << 20));
+        writer.start();
+        writer.stop();
+
+        assertEquals(List.of(1, 3), storedMoves());
+        assertTrue(new MoveJournal(directory.toString(), 1 << 20).recover().isEmpty());
+    }
+
+    private GameMoveWriter writer(MoveJournal journal) {
+        return new GameMoveWriter(journal, gameRepository, gameMoveRepository, transactionTemplate, 100, 100);
+    }
+
+    private List<Integer> storedMoves() {
+        synchronized (stored) {
+            return stored.stream().sorted().toList();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the move writer");
+            Thread.sleep(10);
+        }
+    }
+
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
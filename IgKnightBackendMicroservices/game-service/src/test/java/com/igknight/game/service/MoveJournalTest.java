@@ -0,0 +1,118 @@
+package com.igknight.game.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.igknight.game.engine.Color;
+import com.igknight.game.entity.GameMove;
+
+/**
+ * Moves left in the journal by one run are read back by the next, and segments go away once released.
+ */
+class MoveJournalTest {
+
+    private static final long GAME_ID = 7L;
+    private static final long SEGMENT_BYTES = 1 << 20;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversMovesOfPreviousRun() throws IOException {
+        MoveJournal journal = new MoveJournal(directory.toString(), SEGMENT_BYTES);
+        GameMove first = move(1, "e2", "e4");
+        first.setSanNotation("e4");
+        first.setTimeTaken(1500);
+        journal.append(GAME_ID, first);
+        journal.append(GAME_ID + 1, move(2, "e7", "e5"));
+        journal.close();
+
+        List<MoveJournal.Entry> entries = new MoveJournal(directory.toString(), SEGMENT_BYTES).recover();
+
+        assertEquals(2, entries.size());
+        MoveJournal.Entry entry = entries.get(0);
+        assertEquals(GAME_ID, entry.gameId());
+        assertEquals(1, entry.move().getMoveNumber());
+        assertEquals(Color.WHITE, entry.move().getPlayerColor());
+        assertEquals("e2", entry.move().getFromSquare());
+        assertEquals("e4", entry.move().getToSquare());
+        assertEquals("e4", entry.move().getSanNotation());
+        assertEquals(1500, entry.move().getTimeTaken());
+        assertEquals(first.getCreatedAt(), entry.move().getCreatedAt());
+        assertEquals(GAME_ID + 1, entries.get(1).gameId());
+    }
+
+    @Test
+    void stopsAtTornRecord() throws IOException {
+        MoveJournal journal = new MoveJournal(directory.toString(), SEGMENT_BYTES);
+        journal.append(GAME_ID, move(1, "e2", "e4"));
+        journal.append(GAME_ID, move(2, "e7", "e5"));
+        journal.close();
+        // A crash in the middle of the second append
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        List<MoveJournal.Entry> entries = new MoveJournal(directory.toString(), SEGMENT_BYTES).recover();
+
+        assertEquals(1, entries.size());
+        assertEquals(1, entries.get(0).move().getMoveNumber());
+    }
+
+    @Test
+    void deletesRolledSegmentOnceReleased() throws IOException {
+        // Every append rolls over to a new segment
+        MoveJournal journal = new MoveJournal(directory.toString(), 1);
+        MoveJournal.Segment first = journal.append(GAME_ID, move(1, "e2", "e4"));
+        MoveJournal.Segment second = journal.append(GAME_ID, move(2, "e7", "e5"));
+        assertEquals(2, segments().size());
+
+        first.release();
+        assertEquals(1, segments().size());
+
+        // The current segment stays until it is rolled over or closed
+        second.release();
+        assertEquals(1, segments().size());
+        journal.close();
+        assertTrue(segments().isEmpty());
+    }
+
+    @Test
+    void keepsSegmentWithUnreleasedMove() throws IOException {
+        MoveJournal journal = new MoveJournal(directory.toString(), SEGMENT_BYTES);
+        journal.append(GAME_ID, move(1, "e2", "e4")).release();
+        journal.append(GAME_ID, move(2, "e7", "e5"));
+        journal.close();
+        assertEquals(1, segments().size());
+
+        MoveJournal next = new MoveJournal(directory.toString(), SEGMENT_BYTES);
+        assertEquals(2, next.recover().size());
+        next.discardRecovered();
+        assertTrue(segments().isEmpty());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    static GameMove move(int moveNumber, String from, String to) {
+        GameMove move = new GameMove(null, moveNumber, moveNumber % 2 == 1 ? Color.WHITE : Color.BLACK, from, to, "PAWN");
+        move.setCreatedAt(LocalDateTime.of(2026, 1, 1, 12, 0).plusSeconds(moveNumber));
+        return move;
+    }
+}
@@ -0,0 +1,78 @@
+package com.igknight.game.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.igknight.game.engine.Board;
+
+/**
+ * Reference perft counts from the Chess Programming Wiki and Martin Sedlak's edge-case suite,
+ * checked against both legal move strategies.
+ */
+class PerftTest {
+
+    static Stream<Arguments> referencePositions() {
+        return Stream.of(
+            Arguments.of(Perft.START_POSITION, 4, 197_281L),
+            Arguments.of(Perft.KIWIPETE, 3, 97_862L),
+            Arguments.of(Perft.EN_PASSANT_ENDGAME, 5, 674_624L),
+            Arguments.of(Perft.PROMOTIONS, 4, 422_333L),
+            Arguments.of(Perft.PROMOTION_CAPTURES, 3, 62_379L),
+            Arguments.of(Perft.MIDDLEGAME, 3, 89_890L),
+            // En passant that would expose the king along the rank or diagonal
+            Arguments.of("3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", 6, 1_134_888L),
+            Arguments.of("8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1", 6, 1_015_133L),
+            // En passant capture that gives check
+            Arguments.of("8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", 6, 1_440_467L),
+            // Castling through and out of check
+            Arguments.of("r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", 4, 1_274_206L),
+            Arguments.of("r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1", 4, 1_720_476L),
+            // Promotion and under-promotion giving check
+            Arguments.of("2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", 6, 3_821_001L),
+            Arguments.of("8/P1k5/K7/8/8/8/8/8 w - - 0 1", 6, 92_683L),
+            // Double check evasions
+            Arguments.of("8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", 4, 23_527L)
+        );
+    }
+
+    static Stream<Arguments> referencePositionsForEachStrategy() {
+        return Stream.of(LegalMoveStrategy.values())
+                .flatMap(strategy -> referencePositions()
+                        .map(arguments -> Arguments.of(strategy, arguments.get()[0], arguments.get()[1], arguments.get()[2])));
+    }
+
+    @ParameterizedTest(name = "{0} {1} depth {2}")
+    @MethodSource("referencePositionsForEachStrategy")
+    void matchesReferenceNodeCount(LegalMoveStrategy strategy, String fen, int depth, long expectedNodes) {
+        Perft perft = newPerft(strategy);
+        Board board = Board.fromFEN(fen);
+
+        long nodes = perft.perft(board, depth);
+
+        assertEquals(expectedNodes, nodes, () -> "Divide for " + fen + "\n" + Perft.formatDivide(perft.divide(board, depth)));
+        assertEquals(fen, board.toFEN(), "make/unmake must restore the position");
+    }
+
+    @Test
+    void divideSplitsNodesByRootMove() {
+        Perft perft = newPerft(LegalMoveStrategy.PIN_AWARE);
+
+        Map<String, Long> divide = perft.divide(Board.fromFEN(Perft.START_POSITION), 3);
+
+        assertEquals(20, divide.size());
+        assertEquals(600L, divide.get("e2e4"));
+        assertEquals(8_902L, divide.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    private static Perft newPerft(LegalMoveStrategy strategy) {
+        MoveGenerator moveGenerator = new MoveGenerator();
+        return new Perft(new MoveValidator(moveGenerator, new LegalMoveGenerator(moveGenerator), strategy));
+    }
+}
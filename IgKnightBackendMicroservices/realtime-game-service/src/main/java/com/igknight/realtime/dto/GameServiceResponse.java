@@ -4,6 +4,7 @@ import lombok.Data;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DTO for Game Service response
@@ -27,6 +28,11 @@ public class GameServiceResponse {
     private LocalDateTime updatedAt;
     private LocalDateTime endedAt;
     private List<MoveInfo> moves;
+    private Integer moveCount;
+    // Set when moves only holds the moves numbered above it, as in move notifications
+    private Integer movesSince;
+    // Destination squares of each piece of the side to move, by square; absent once the game is over
+    private Map<String, List<String>> legalMoves;
 
     @Data
     public static class PlayerInfo {
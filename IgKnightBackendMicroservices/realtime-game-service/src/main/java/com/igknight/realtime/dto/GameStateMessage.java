@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * DTO for GAME_STATE message sent to newly connected client
  */
@@ -15,6 +18,8 @@ public class GameStateMessage {
     private String currentTurn;
     private String status;
     private LastMoveInfo lastMove;
+    // Legal moves of the side to move, by origin square
+    private Map<String, List<String>> legalMoves;
 
     @Data
     @NoArgsConstructor
@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * DTO for MOVE_RESULT message to broadcast after successful move
  */
@@ -20,4 +23,6 @@ public class MoveResultMessage {
     private Boolean isCapture;
     private Boolean isCheck;
     private Boolean isCheckmate;
+    // Legal moves of the side to move next, by origin square
+    private Map<String, List<String>> legalMoves;
 }
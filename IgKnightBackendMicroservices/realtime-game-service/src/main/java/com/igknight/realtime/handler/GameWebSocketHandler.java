@@ -13,8 +13,10 @@ import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.igknight.realtime.dto.ClockUpdateMessage;
 import com.igknight.realtime.dto.GameServiceMoveRequest;
 import com.igknight.realtime.dto.GameServiceResponse;
@@ -28,14 +30,19 @@ import com.igknight.realtime.model.GameClock;
 import com.igknight.realtime.service.ClockService;
 import com.igknight.realtime.service.GameRoomService;
 import com.igknight.realtime.service.GameServiceClient;
+import com.igknight.realtime.service.OutboundFrame;
 
 /**
  * WebSocket handler for game-related real-time communication with room support
+ *
+ * Every outgoing message is serialized once, into an {@link OutboundFrame} that
+ * all its recipients share.
  */
 @Component
 public class GameWebSocketHandler extends TextWebSocketHandler {
 
     private static final Logger log = LoggerFactory.getLogger(GameWebSocketHandler.class);
+    private static final String SPECTATOR_ROLE = "spectator";
 
     private final GameRoomService gameRoomService;
     private final GameServiceClient gameServiceClient;
@@ -61,7 +68,7 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         String gameId = extractGameIdFromUri(session.getUri());
         if (gameId == null || gameId.trim().isEmpty()) {
             log.warn("Connection rejected: missing gameId parameter for session {}", sessionId);
-            session.sendMessage(new TextMessage("{\"type\":\"ERROR\",\"message\":\"Missing gameId parameter\"}"));
+            session.sendMessage(errorFrame("Missing gameId parameter").message());
             session.close(CloseStatus.BAD_DATA);
             return;
         }
@@ -76,7 +83,7 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
 
         if (userId == null || userId.trim().isEmpty()) {
             log.warn("Connection rejected: missing userId (header or query param) for session {}", sessionId);
-            session.sendMessage(new TextMessage("{\"type\":\"ERROR\",\"message\":\"Missing userId (use X-User-Id header or userId query param)\"}"));
+            session.sendMessage(errorFrame("Missing userId (use X-User-Id header or userId query param)").message());
             session.close(CloseStatus.BAD_DATA);
             return;
         }
@@ -84,6 +91,11 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         log.info("WebSocket connection established: sessionId={}, gameId={}, userId={}",
                 sessionId, gameId, userId);
 
+        if (SPECTATOR_ROLE.equalsIgnoreCase(extractRoleFromUri(session.getUri()))) {
+            addSpectator(session, gameId, userId);
+            return;
+        }
+
         // Fetch current game state from Game Service
         try {
             GameServiceResponse gameState = gameServiceClient.getGameState(gameId, userId);
@@ -92,10 +104,12 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
             gameRoomService.addSessionToGame(gameId, userId, session);
 
             // Send connection confirmation to the user
-            String confirmationMessage = String.format(
-                "{\"type\":\"CONNECTED\",\"gameId\":\"%s\",\"userId\":\"%s\",\"message\":\"Connected to game room\"}",
-                gameId, userId
-            );
+            OutboundFrame confirmationMessage = OutboundFrame.json(objectMapper, objectMapper.createObjectNode()
+                    .put("type", "CONNECTED")
+                    .put("gameId", gameId)
+                    .put("userId", userId)
+                    .put("role", "PLAYER")
+                    .put("message", "Connected to game room"));
             gameRoomService.sendToSession(session, confirmationMessage);
 
             // Send current game state to the newly connected client
@@ -108,22 +122,34 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
             }
 
             // Broadcast USER_JOINED event to all players in the game
-            String joinMessage = String.format(
-                "{\"type\":\"USER_JOINED\",\"gameId\":\"%s\",\"userId\":\"%s\",\"players\":%d}",
-                gameId, userId, gameRoomService.getGameRoomSize(gameId)
-            );
-            gameRoomService.broadcastToGame(gameId, joinMessage);
+            gameRoomService.broadcastToGame(gameId, presenceFrame("USER_JOINED", gameId, userId));
 
         } catch (GameServiceClient.GameServiceException e) {
             log.error("Failed to fetch game state for gameId {}: {}", gameId, e.getMessage());
-            session.sendMessage(new TextMessage(String.format(
-                "{\"type\":\"ERROR\",\"message\":\"Failed to load game: %s\"}",
-                e.getMessage()
-            )));
+            session.sendMessage(errorFrame("Failed to load game: " + e.getMessage()).message());
             session.close(CloseStatus.SERVER_ERROR);
         }
     }
 
+    /**
+     * Join a session as a read-only spectator
+     * Spectators only see the game as it is broadcast, so they need no state from
+     * Game Service, and their arrival is not announced to the room
+     */
+    private void addSpectator(WebSocketSession session, String gameId, String userId) throws Exception {
+        OutboundFrame connected = OutboundFrame.json(objectMapper, objectMapper.createObjectNode()
+                .put("type", "CONNECTED")
+                .put("gameId", gameId)
+                .put("userId", userId)
+                .put("role", "SPECTATOR")
+                .put("message", "Watching game"));
+        if (!gameRoomService.addSpectatorToGame(gameId, userId, session, connected)) {
+            log.info("Spectator {} rejected: game {} is not being played live", userId, gameId);
+            session.sendMessage(errorFrame("Game is not being played live").message());
+            session.close(CloseStatus.NOT_ACCEPTABLE);
+        }
+    }
+
     /**
      * Called when a text message is received from the client
      */
@@ -139,7 +165,12 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
 
         if (gameId == null) {
             log.warn("Received message from unregistered session {}", sessionId);
-            gameRoomService.sendToSession(session, "{\"type\":\"ERROR\",\"message\":\"Session not in a game room\"}");
+            gameRoomService.sendToSession(session, errorFrame("Session not in a game room"));
+            return;
+        }
+
+        if (gameRoomService.isSpectator(session)) {
+            gameRoomService.sendToSession(session, errorFrame("Spectators cannot send messages"));
             return;
         }
 
@@ -150,7 +181,7 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
 
             if (messageType == null) {
                 log.warn("Message missing 'type' field from session {}", sessionId);
-                gameRoomService.sendToSession(session, "{\"type\":\"ERROR\",\"message\":\"Message must have 'type' field\"}");
+                gameRoomService.sendToSession(session, errorFrame("Message must have 'type' field"));
                 return;
             }
 
@@ -158,18 +189,18 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
             if ("MOVE".equals(messageType)) {
                 handleMoveMessage(session, gameId, userId, jsonNode);
             } else {
-                // For other message types, broadcast as before
-                String broadcastMessage = String.format(
-                    "{\"type\":\"MESSAGE\",\"gameId\":\"%s\",\"userId\":\"%s\",\"data\":%s}",
-                    gameId, userId, payload
-                );
-                gameRoomService.broadcastToGame(gameId, broadcastMessage);
+                // For other message types, relay the client's message to the room
+                ObjectNode broadcastMessage = objectMapper.createObjectNode()
+                        .put("type", "MESSAGE")
+                        .put("gameId", gameId)
+                        .put("userId", userId);
+                broadcastMessage.set("data", jsonNode);
+                gameRoomService.broadcastToGame(gameId, OutboundFrame.json(objectMapper, broadcastMessage));
             }
 
         } catch (Exception e) {
             log.error("Error processing message from session {}: {}", sessionId, e.getMessage(), e);
-            gameRoomService.sendToSession(session,
-                String.format("{\"type\":\"ERROR\",\"message\":\"Invalid message format: %s\"}", e.getMessage()));
+            gameRoomService.sendToSession(session, errorFrame("Invalid message format: " + e.getMessage()));
         }
     }
 
@@ -181,14 +212,14 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
             // Extract move data
             JsonNode dataNode = jsonNode.get("data");
             if (dataNode == null) {
-                gameRoomService.sendToSession(session, "{\"type\":\"ERROR\",\"message\":\"MOVE message missing 'data' field\"}");
+                gameRoomService.sendToSession(session, errorFrame("MOVE message missing 'data' field"));
                 return;
             }
 
             MoveMessage moveMessage = objectMapper.treeToValue(dataNode, MoveMessage.class);
 
             if (moveMessage.getFrom() == null || moveMessage.getTo() == null) {
-                gameRoomService.sendToSession(session, "{\"type\":\"ERROR\",\"message\":\"Move must have 'from' and 'to' fields\"}");
+                gameRoomService.sendToSession(session, errorFrame("Move must have 'from' and 'to' fields"));
                 return;
             }
 
@@ -223,43 +254,27 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
      */
     private void sendGameState(WebSocketSession session, GameServiceResponse gameState) {
         try {
-            GameStateMessage stateMessage = new GameStateMessage();
-            stateMessage.setFen(gameState.getFenPosition());
-            stateMessage.setCurrentTurn(gameState.getCurrentTurn());
-            stateMessage.setStatus(gameState.getStatus());
-
-            // Extract last move if available
-            if (gameState.getMoves() != null && !gameState.getMoves().isEmpty()) {
-                GameServiceResponse.MoveInfo lastMove = gameState.getMoves().get(gameState.getMoves().size() - 1);
-
-                GameStateMessage.LastMoveInfo lastMoveInfo = new GameStateMessage.LastMoveInfo();
-                lastMoveInfo.setFrom(lastMove.getFrom());
-                lastMoveInfo.setTo(lastMove.getTo());
-                lastMoveInfo.setPiece(lastMove.getPiece());
-                lastMoveInfo.setSan(lastMove.getSan());
-                lastMoveInfo.setIsCapture(lastMove.getIsCapture());
-                lastMoveInfo.setIsCheck(lastMove.getIsCheck());
-                lastMoveInfo.setIsCheckmate(lastMove.getIsCheckmate());
-
-                stateMessage.setLastMove(lastMoveInfo);
-            }
-
-            WebSocketMessage wsMessage = new WebSocketMessage("GAME_STATE", stateMessage);
-            String jsonMessage = objectMapper.writeValueAsString(wsMessage);
+            OutboundFrame frame = gameStateFrame(gameState);
 
             log.info("Sending GAME_STATE to session {}: status={}, turn={}",
                     session.getId(), gameState.getStatus(), gameState.getCurrentTurn());
-            gameRoomService.sendToSession(session, jsonMessage);
+            gameRoomService.sendToSession(session, frame);
+
+            // Also what spectators joining from now on start from
+            String gameId = gameRoomService.getGameId(session);
+            if (gameId != null) {
+                gameRoomService.publishSpectatorState(gameId, frame);
+            }
 
             // Initialize clock if game is in progress and has time control
             if ("IN_PROGRESS".equals(gameState.getStatus()) && gameState.getTimeControl() != null && gameState.getTimeControl() > 0) {
-                String gameId = gameRoomService.getGameId(session);
                 if (gameId != null && !clockService.hasClock(gameId)) {
                     // Convert seconds to milliseconds
                     long whiteTimeMs = (gameState.getWhiteTimeRemaining() != null ? gameState.getWhiteTimeRemaining() : gameState.getTimeControl()) * 1000L;
                     long blackTimeMs = (gameState.getBlackTimeRemaining() != null ? gameState.getBlackTimeRemaining() : gameState.getTimeControl()) * 1000L;
 
-                    clockService.initializeClock(gameId, whiteTimeMs, blackTimeMs, gameState.getCurrentTurn());
+                    clockService.initializeClock(gameId, whiteTimeMs, blackTimeMs, gameState.getCurrentTurn(),
+                            timedOutColor -> handleTimeout(gameId, playerIdFor(gameState, timedOutColor), timedOutColor, false));
 
                     // Send initial clock update
                     broadcastClockUpdate(gameId);
@@ -272,21 +287,46 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
     }
 
     /**
-     * Broadcast MOVE_RESULT to all players in the game
+     * GAME_STATE message for a game as Game Service reports it
+     */
+    private OutboundFrame gameStateFrame(GameServiceResponse gameState) throws JsonProcessingException {
+        GameStateMessage stateMessage = new GameStateMessage();
+        stateMessage.setFen(gameState.getFenPosition());
+        stateMessage.setCurrentTurn(gameState.getCurrentTurn());
+        stateMessage.setStatus(gameState.getStatus());
+        stateMessage.setLegalMoves(gameState.getLegalMoves());
+
+        // Extract last move if available
+        if (gameState.getMoves() != null && !gameState.getMoves().isEmpty()) {
+            GameServiceResponse.MoveInfo lastMove = gameState.getMoves().get(gameState.getMoves().size() - 1);
+
+            GameStateMessage.LastMoveInfo lastMoveInfo = new GameStateMessage.LastMoveInfo();
+            lastMoveInfo.setFrom(lastMove.getFrom());
+            lastMoveInfo.setTo(lastMove.getTo());
+            lastMoveInfo.setPiece(lastMove.getPiece());
+            lastMoveInfo.setSan(lastMove.getSan());
+            lastMoveInfo.setIsCapture(lastMove.getIsCapture());
+            lastMoveInfo.setIsCheck(lastMove.getIsCheck());
+            lastMoveInfo.setIsCheckmate(lastMove.getIsCheckmate());
+
+            stateMessage.setLastMove(lastMoveInfo);
+        }
+
+        return OutboundFrame.json(objectMapper, new WebSocketMessage("GAME_STATE", stateMessage));
+    }
+
+    /**
+     * Broadcast MOVE_RESULT to all players and spectators in the game
      */
     private void broadcastMoveResult(String gameId, GameServiceResponse gameResponse) {
         try {
-            // Update clock after move
+            // Update clock after move; this re-arms the flag for the side now to move
             if (clockService.hasClock(gameId)) {
-                int incrementMs = gameResponse.getTimeIncrement() != null ? gameResponse.getTimeIncrement() * 1000 : 0;
-                clockService.updateAfterMove(gameId, incrementMs);
-
-                // Check for timeout
-                String timedOutColor = clockService.checkTimeout(gameId);
-                if (timedOutColor != null) {
-                    // Find a userId for the timed out player (we'll use the game service resign endpoint)
-                    // For now, we'll handle this in the grace timer expiry
-                    log.warn("Player {} timed out after move in game {}", timedOutColor, gameId);
+                if (!"IN_PROGRESS".equals(gameResponse.getStatus())) {
+                    clockService.removeClock(gameId);
+                } else {
+                    int incrementMs = gameResponse.getTimeIncrement() != null ? gameResponse.getTimeIncrement() * 1000 : 0;
+                    clockService.updateAfterMove(gameId, incrementMs);
                 }
             }
 
@@ -304,12 +344,14 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
                 moveResult.setIsCapture(lastMove.getIsCapture());
                 moveResult.setIsCheck(lastMove.getIsCheck());
                 moveResult.setIsCheckmate(lastMove.getIsCheckmate());
+                moveResult.setLegalMoves(gameResponse.getLegalMoves());
 
                 WebSocketMessage wsMessage = new WebSocketMessage("MOVE_RESULT", moveResult);
-                String jsonMessage = objectMapper.writeValueAsString(wsMessage);
+                OutboundFrame frame = OutboundFrame.json(objectMapper, wsMessage);
 
-                log.info("Broadcasting MOVE_RESULT to game {}: {}", gameId, jsonMessage);
-                gameRoomService.broadcastToGame(gameId, jsonMessage);
+                log.info("Broadcasting MOVE_RESULT to game {}: {}", gameId, frame);
+                gameRoomService.publishSpectatorState(gameId, gameStateFrame(gameResponse));
+                gameRoomService.broadcastToGame(gameId, frame);
 
                 // Broadcast clock update after move
                 if (clockService.hasClock(gameId)) {
@@ -339,10 +381,10 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         try {
             MoveRejectedMessage rejection = new MoveRejectedMessage(reason);
             WebSocketMessage wsMessage = new WebSocketMessage("MOVE_REJECTED", rejection);
-            String jsonMessage = objectMapper.writeValueAsString(wsMessage);
+            OutboundFrame frame = OutboundFrame.json(objectMapper, wsMessage);
 
-            log.info("Sending MOVE_REJECTED to session {}: {}", session.getId(), jsonMessage);
-            gameRoomService.sendToSession(session, jsonMessage);
+            log.info("Sending MOVE_REJECTED to session {}: {}", session.getId(), frame);
+            gameRoomService.sendToSession(session, frame);
 
         } catch (Exception e) {
             log.error("Error sending MOVE_REJECTED to session {}", session.getId(), e);
@@ -350,7 +392,7 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
     }
 
     /**
-     * Broadcast CLOCK_UPDATE to all players in a game
+     * Broadcast CLOCK_UPDATE to all players in a game, and coalesced to its spectators
      */
     private void broadcastClockUpdate(String gameId) {
         try {
@@ -359,17 +401,20 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
                 return;
             }
 
+            // Both times from one snapshot, as of the same instant
+            GameClock.Snapshot snapshot = clock.snapshot();
+            long now = System.nanoTime();
             ClockUpdateMessage clockUpdate = new ClockUpdateMessage();
-            clockUpdate.setWhiteTimeMs(clock.getWhiteTimeMs());
-            clockUpdate.setBlackTimeMs(clock.getBlackTimeMs());
-            clockUpdate.setActiveColor(clock.getActiveColor());
+            clockUpdate.setWhiteTimeMs(snapshot.whiteTimeMs(now));
+            clockUpdate.setBlackTimeMs(snapshot.blackTimeMs(now));
+            clockUpdate.setActiveColor(snapshot.activeColor());
 
             WebSocketMessage wsMessage = new WebSocketMessage("CLOCK_UPDATE", clockUpdate);
-            String jsonMessage = objectMapper.writeValueAsString(wsMessage);
+            OutboundFrame frame = OutboundFrame.json(objectMapper, wsMessage);
 
             log.debug("Broadcasting CLOCK_UPDATE to game {}: white={}ms, black={}ms",
-                    gameId, clock.getWhiteTimeMs(), clock.getBlackTimeMs());
-            gameRoomService.broadcastToGame(gameId, jsonMessage);
+                    gameId, clockUpdate.getWhiteTimeMs(), clockUpdate.getBlackTimeMs());
+            gameRoomService.broadcastClockUpdate(gameId, frame);
 
         } catch (Exception e) {
             log.error("Error broadcasting clock update for game {}", gameId, e);
@@ -378,21 +423,26 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
 
     /**
      * Handle player timeout
+     * @param abandoned true when the player's grace period after disconnecting ran out, rather than their clock
      */
-    private void handleTimeout(String gameId, String userId, String timedOutColor) {
+    private void handleTimeout(String gameId, String userId, String timedOutColor, boolean abandoned) {
         try {
             log.warn("Player {} timed out in game {}", userId, gameId);
 
             // Report timeout to Game Service
-            gameServiceClient.reportTimeout(gameId, userId);
+            if (abandoned) {
+                gameServiceClient.reportAbandonment(gameId, userId);
+            } else {
+                gameServiceClient.reportTimeout(gameId, userId);
+            }
 
             // Broadcast timeout message
             String winner = "WHITE".equals(timedOutColor) ? "BLACK" : "WHITE";
-            TimeoutMessage timeoutMsg = new TimeoutMessage(timedOutColor, winner, "Time out");
+            TimeoutMessage timeoutMsg = new TimeoutMessage(timedOutColor, winner, abandoned ? "Disconnected" : "Time out");
             WebSocketMessage wsMessage = new WebSocketMessage("TIMEOUT", timeoutMsg);
-            String jsonMessage = objectMapper.writeValueAsString(wsMessage);
+            OutboundFrame frame = OutboundFrame.json(objectMapper, wsMessage);
 
-            gameRoomService.broadcastToGame(gameId, jsonMessage);
+            gameRoomService.broadcastToGame(gameId, frame);
 
             // Clean up clock
             clockService.removeClock(gameId);
@@ -409,11 +459,17 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         String sessionId = session.getId();
         String userId = gameRoomService.getUserId(session);
+        boolean spectator = gameRoomService.isSpectator(session);
         String gameId = gameRoomService.removeSession(session);
 
         log.info("WebSocket connection closed: sessionId={}, gameId={}, userId={}, status={}",
                 sessionId, gameId, userId, status);
 
+        // A spectator leaving affects neither the clock nor the players
+        if (spectator) {
+            return;
+        }
+
         // Handle clock pause and grace period if game has a clock
         if (gameId != null && clockService.hasClock(gameId)) {
             int remainingPlayers = gameRoomService.getGameRoomSize(gameId);
@@ -424,7 +480,7 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
                 clockService.pauseClockOnDisconnect(gameId, () -> {
                     // Grace period expired - player timed out due to disconnect
                     log.warn("Grace period expired for user {} in game {}", finalUserId, gameId);
-                    handleTimeout(gameId, finalUserId, determinePlayerColor(gameId, finalUserId));
+                    handleTimeout(gameId, finalUserId, determinePlayerColor(gameId, finalUserId), true);
                 });
             } else {
                 // No other players, just remove the clock
@@ -434,14 +490,38 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
 
         // Broadcast USER_LEFT event to remaining players in the game
         if (gameId != null && userId != null) {
-            String leaveMessage = String.format(
-                "{\"type\":\"USER_LEFT\",\"gameId\":\"%s\",\"userId\":\"%s\",\"players\":%d}",
-                gameId, userId, gameRoomService.getGameRoomSize(gameId)
-            );
-            gameRoomService.broadcastToGame(gameId, leaveMessage);
+            gameRoomService.broadcastToGame(gameId, presenceFrame("USER_LEFT", gameId, userId));
         }
     }
 
+    /**
+     * ERROR message for a single session
+     */
+    private OutboundFrame errorFrame(String message) throws JsonProcessingException {
+        return OutboundFrame.json(objectMapper, objectMapper.createObjectNode()
+                .put("type", "ERROR")
+                .put("message", message));
+    }
+
+    /**
+     * USER_JOINED / USER_LEFT message, with the room's current size
+     */
+    private OutboundFrame presenceFrame(String type, String gameId, String userId) throws JsonProcessingException {
+        return OutboundFrame.json(objectMapper, objectMapper.createObjectNode()
+                .put("type", type)
+                .put("gameId", gameId)
+                .put("userId", userId)
+                .put("players", gameRoomService.getGameRoomSize(gameId)));
+    }
+
+    /**
+     * User id of the player of the given color, as a string
+     */
+    private String playerIdFor(GameServiceResponse gameState, String color) {
+        GameServiceResponse.PlayerInfo player = "WHITE".equals(color) ? gameState.getWhitePlayer() : gameState.getBlackPlayer();
+        return player != null ? String.valueOf(player.getId()) : null;
+    }
+
     /**
      * Determine player color from game state
      * This is a simplified version - in production you'd track player colors
@@ -503,6 +583,21 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         return null;
     }
 
+    /**
+     * Extract the requested role from query parameter
+     * Expected format: ws://host/ws/game?gameId=123&role=spectator
+     */
+    private String extractRoleFromUri(URI uri) {
+        if (uri == null) {
+            return null;
+        }
+
+        return UriComponentsBuilder.fromUri(uri)
+                .build()
+                .getQueryParams()
+                .getFirst("role");
+    }
+
     /**
      * Extract userId from query parameter (fallback for browser testing)
      * Expected format: ws://host/ws/game?gameId=123&userId=101
@@ -1,74 +1,77 @@
 package com.igknight.realtime.model;
 
-import lombok.Data;
-
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * In-memory chess clock for a game
- * Thread-safe with ReentrantLock
+ *
+ * The whole state is one immutable {@link Snapshot} behind an atomic reference:
+ * reads never block or retry, and every change (a move, pause or resume) is a
+ * compare-and-set of a new snapshot, so a move can never be half-applied as seen
+ * by a concurrent reader. Time is measured with {@link System#nanoTime()}, which
+ * does not jump when the wall clock is adjusted.
  */
-@Data
 public class GameClock {
+
+    public static final String WHITE = "WHITE";
+    public static final String BLACK = "BLACK";
+
     private final String gameId;
-    private Long whiteTimeMs;
-    private Long blackTimeMs;
-    private String activeColor; // "WHITE" or "BLACK"
-    private Long lastTickTimestamp;
-    private boolean paused;
-    private final ReentrantLock lock = new ReentrantLock();
-
-    public GameClock(String gameId, Long whiteTimeMs, Long blackTimeMs, String activeColor) {
+    private final AtomicReference<Snapshot> state;
+
+    public GameClock(String gameId, long whiteTimeMs, long blackTimeMs, String activeColor) {
         this.gameId = gameId;
-        this.whiteTimeMs = whiteTimeMs;
-        this.blackTimeMs = blackTimeMs;
-        this.activeColor = activeColor;
-        this.lastTickTimestamp = System.currentTimeMillis();
-        this.paused = false;
+        this.state = new AtomicReference<>(new Snapshot(
+                TimeUnit.MILLISECONDS.toNanos(whiteTimeMs),
+                TimeUnit.MILLISECONDS.toNanos(blackTimeMs),
+                !BLACK.equals(activeColor),
+                false,
+                System.nanoTime()));
+    }
+
+    public String getGameId() {
+        return gameId;
     }
 
     /**
-     * Update clock after a move
-     * @return elapsed time in milliseconds
+     * The current state; read the times of both sides from one snapshot to get a consistent pair.
      */
-    public long tick() {
-        lock.lock();
-        try {
-            if (paused) {
-                return 0;
-            }
+    public Snapshot snapshot() {
+        return state.get();
+    }
 
-            long now = System.currentTimeMillis();
-            long elapsed = now - lastTickTimestamp;
+    public long getWhiteTimeMs() {
+        return state.get().whiteTimeMs(System.nanoTime());
+    }
 
-            // Deduct time from active player
-            if ("WHITE".equals(activeColor)) {
-                whiteTimeMs = Math.max(0, whiteTimeMs - elapsed);
-            } else if ("BLACK".equals(activeColor)) {
-                blackTimeMs = Math.max(0, blackTimeMs - elapsed);
-            }
+    public long getBlackTimeMs() {
+        return state.get().blackTimeMs(System.nanoTime());
+    }
 
-            lastTickTimestamp = now;
-            return elapsed;
-        } finally {
-            lock.unlock();
-        }
+    public String getActiveColor() {
+        return state.get().activeColor();
+    }
+
+    public boolean isPaused() {
+        return state.get().paused();
     }
 
     /**
-     * Switch active color after a move
+     * Charge the time used to the side that moved, add its increment and start the opponent's clock
      */
-    public void switchActiveColor() {
-        lock.lock();
-        try {
-            if ("WHITE".equals(activeColor)) {
-                activeColor = "BLACK";
-            } else if ("BLACK".equals(activeColor)) {
-                activeColor = "WHITE";
+    public Snapshot completeMove(long incrementMs) {
+        long incrementNanos = TimeUnit.MILLISECONDS.toNanos(incrementMs);
+        while (true) {
+            Snapshot current = state.get();
+            long now = System.nanoTime();
+            Snapshot charged = current.chargedTo(now);
+            long white = charged.whiteNanos + (charged.whiteActive ? incrementNanos : 0);
+            long black = charged.blackNanos + (charged.whiteActive ? 0 : incrementNanos);
+            Snapshot next = new Snapshot(white, black, !charged.whiteActive, charged.paused, now);
+            if (state.compareAndSet(current, next)) {
+                return next;
             }
-            lastTickTimestamp = System.currentTimeMillis();
-        } finally {
-            lock.unlock();
         }
     }
 
@@ -76,15 +79,16 @@ public class GameClock {
      * Pause the clock (on disconnect)
      */
     public void pause() {
-        lock.lock();
-        try {
-            if (!paused) {
-                // Deduct elapsed time before pausing
-                tick();
-                paused = true;
+        while (true) {
+            Snapshot current = state.get();
+            if (current.paused) {
+                return;
+            }
+            Snapshot charged = current.chargedTo(System.nanoTime());
+            Snapshot next = new Snapshot(charged.whiteNanos, charged.blackNanos, charged.whiteActive, true, charged.sinceNanos);
+            if (state.compareAndSet(current, next)) {
+                return;
             }
-        } finally {
-            lock.unlock();
         }
     }
 
@@ -92,14 +96,15 @@ public class GameClock {
      * Resume the clock (on reconnect)
      */
     public void resume() {
-        lock.lock();
-        try {
-            if (paused) {
-                paused = false;
-                lastTickTimestamp = System.currentTimeMillis();
+        while (true) {
+            Snapshot current = state.get();
+            if (!current.paused) {
+                return;
+            }
+            Snapshot next = new Snapshot(current.whiteNanos, current.blackNanos, current.whiteActive, false, System.nanoTime());
+            if (state.compareAndSet(current, next)) {
+                return;
             }
-        } finally {
-            lock.unlock();
         }
     }
 
@@ -108,34 +113,47 @@ public class GameClock {
      * @return color that timed out, or null
      */
     public String checkTimeout() {
-        lock.lock();
-        try {
-            tick(); // Update time first
-
-            if (whiteTimeMs <= 0) {
-                return "WHITE";
-            } else if (blackTimeMs <= 0) {
-                return "BLACK";
-            }
-            return null;
-        } finally {
-            lock.unlock();
+        Snapshot current = state.get();
+        long now = System.nanoTime();
+        if (current.whiteTimeMs(now) <= 0) {
+            return WHITE;
+        } else if (current.blackTimeMs(now) <= 0) {
+            return BLACK;
         }
+        return null;
     }
 
     /**
-     * Add increment to active player's time
+     * Clock state at {@code sinceNanos}; the side to move has been using time since then unless paused.
      */
-    public void addIncrement(int incrementMs) {
-        lock.lock();
-        try {
-            if ("WHITE".equals(activeColor)) {
-                whiteTimeMs += incrementMs;
-            } else if ("BLACK".equals(activeColor)) {
-                blackTimeMs += incrementMs;
+    public record Snapshot(long whiteNanos, long blackNanos, boolean whiteActive, boolean paused, long sinceNanos) {
+
+        public long whiteTimeMs(long nowNanos) {
+            return TimeUnit.NANOSECONDS.toMillis(remainingNanos(true, nowNanos));
+        }
+
+        public long blackTimeMs(long nowNanos) {
+            return TimeUnit.NANOSECONDS.toMillis(remainingNanos(false, nowNanos));
+        }
+
+        public String activeColor() {
+            return whiteActive ? WHITE : BLACK;
+        }
+
+        public long remainingNanos(boolean white, long nowNanos) {
+            long remaining = white ? whiteNanos : blackNanos;
+            if (!paused && white == whiteActive) {
+                remaining -= nowNanos - sinceNanos;
+            }
+            return Math.max(0, remaining);
+        }
+
+        // The same clock with the elapsed time deducted from the side to move, as of now
+        private Snapshot chargedTo(long nowNanos) {
+            if (paused) {
+                return this;
             }
-        } finally {
-            lock.unlock();
+            return new Snapshot(remainingNanos(true, nowNanos), remainingNanos(false, nowNanos), whiteActive, false, nowNanos);
         }
     }
 }
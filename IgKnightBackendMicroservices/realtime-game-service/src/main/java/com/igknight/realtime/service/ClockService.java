@@ -1,15 +1,27 @@
 package com.igknight.realtime.service;
 
 import com.igknight.realtime.model.GameClock;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 /**
  * Service to manage chess clocks for all active games
+ *
+ * Each running clock has one expiry armed on a shared {@link TimingWheel} for
+ * the moment the side to move runs out of time. It is re-armed whenever the
+ * clock changes hands or resumes, and disarmed while paused, so a player who
+ * stops moving loses on time without anyone polling the clock.
+ *
+ * Timeout and grace callbacks report to the game service over HTTP, so they run
+ * on virtual threads; the wheel and the grace scheduler only hand them over and
+ * never wait on a slow game service.
  */
 @Service
 public class ClockService {
@@ -24,12 +36,30 @@ public class ClockService {
     private final Map<String, ScheduledFuture<?>> graceTimers = new ConcurrentHashMap<>();
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
 
+    // Runs the (blocking) timeout and grace callbacks
+    private final ExecutorService callbackExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Flag expiry of each running clock, and who to tell when it fires
+    private final Map<String, TimingWheel.Timeout> expiries = new ConcurrentHashMap<>();
+    private final Map<String, Consumer<String>> timeoutHandlers = new ConcurrentHashMap<>();
+    private final TimingWheel timingWheel;
+
+    public ClockService(@Value("${clock.timing-wheel.tick-ms:10}") long tickMs,
+                        @Value("${clock.timing-wheel.size:512}") int wheelSize) {
+        this.timingWheel = new TimingWheel(tickMs, wheelSize, callbackExecutor, "clock-timing-wheel");
+    }
+
     /**
      * Initialize or update clock for a game
+     *
+     * @param onTimeout called with the color that ran out of time, once, after the clock has been removed
      */
-    public void initializeClock(String gameId, Long whiteTimeMs, Long blackTimeMs, String activeColor) {
+    public void initializeClock(String gameId, Long whiteTimeMs, Long blackTimeMs, String activeColor,
+                                Consumer<String> onTimeout) {
         GameClock clock = new GameClock(gameId, whiteTimeMs, blackTimeMs, activeColor);
         clocks.put(gameId, clock);
+        timeoutHandlers.put(gameId, onTimeout);
+        armExpiry(gameId);
         log.info("Clock initialized for game {}: white={}ms, black={}ms, active={}",
                 gameId, whiteTimeMs, blackTimeMs, activeColor);
     }
@@ -52,19 +82,13 @@ public class ClockService {
             return null;
         }
 
-        // Tick to deduct elapsed time from active player
-        clock.tick();
-
-        // Add increment to the player who just moved (still active before switch)
-        if (incrementMs > 0) {
-            clock.addIncrement(incrementMs);
-        }
-
-        // Switch to next player
-        clock.switchActiveColor();
+        // Deduct elapsed time from the player who moved, add their increment and switch, in one step
+        GameClock.Snapshot snapshot = clock.completeMove(Math.max(0, incrementMs));
+        armExpiry(gameId);
 
         log.debug("Clock updated for game {}: white={}ms, black={}ms, active={}",
-                gameId, clock.getWhiteTimeMs(), clock.getBlackTimeMs(), clock.getActiveColor());
+                gameId, TimeUnit.NANOSECONDS.toMillis(snapshot.whiteNanos()),
+                TimeUnit.NANOSECONDS.toMillis(snapshot.blackNanos()), snapshot.activeColor());
 
         return clock;
     }
@@ -80,17 +104,18 @@ public class ClockService {
         }
 
         clock.pause();
+        disarmExpiry(gameId);
         log.info("Clock paused for game {} due to player disconnect", gameId);
 
         // Cancel existing grace timer if any
         cancelGraceTimer(gameId);
 
         // Start new grace timer
-        ScheduledFuture<?> graceTimer = scheduler.schedule(() -> {
+        ScheduledFuture<?> graceTimer = scheduler.schedule(() -> callbackExecutor.execute(() -> {
             log.warn("Grace period expired for game {}", gameId);
             graceTimers.remove(gameId);
             onGraceExpired.run();
-        }, GRACE_PERIOD_MS, TimeUnit.MILLISECONDS);
+        }), GRACE_PERIOD_MS, TimeUnit.MILLISECONDS);
 
         graceTimers.put(gameId, graceTimer);
         log.info("Grace timer started for game {}: {}ms", gameId, GRACE_PERIOD_MS);
@@ -110,9 +135,60 @@ public class ClockService {
         cancelGraceTimer(gameId);
 
         clock.resume();
+        armExpiry(gameId);
         log.info("Clock resumed for game {} after reconnect", gameId);
     }
 
+    /**
+     * (Re-)arm the flag expiry for the time the side to move has left
+     */
+    private void armExpiry(String gameId) {
+        expiries.compute(gameId, (id, previous) -> {
+            if (previous != null) {
+                previous.cancel();
+            }
+            GameClock clock = clocks.get(id);
+            if (clock == null) {
+                return null;
+            }
+            GameClock.Snapshot snapshot = clock.snapshot();
+            if (snapshot.paused()) {
+                return null;
+            }
+            long remainingNanos = snapshot.remainingNanos(snapshot.whiteActive(), System.nanoTime());
+            return timingWheel.schedule(remainingNanos, TimeUnit.NANOSECONDS, () -> onExpiry(id, clock));
+        });
+    }
+
+    private void disarmExpiry(String gameId) {
+        TimingWheel.Timeout expiry = expiries.remove(gameId);
+        if (expiry != null) {
+            expiry.cancel();
+        }
+    }
+
+    private void onExpiry(String gameId, GameClock clock) {
+        String timedOutColor = clock.checkTimeout();
+        if (timedOutColor == null) {
+            // Raced with a move or resume; arming again from the clock's current state is always correct
+            if (clocks.get(gameId) == clock) {
+                armExpiry(gameId);
+            }
+            return;
+        }
+        // Only the caller that removes this clock reports the timeout
+        if (!clocks.remove(gameId, clock)) {
+            return;
+        }
+        expiries.remove(gameId);
+        cancelGraceTimer(gameId);
+        Consumer<String> onTimeout = timeoutHandlers.remove(gameId);
+        log.info("Game {} flagged: {} ran out of time", gameId, timedOutColor);
+        if (onTimeout != null) {
+            onTimeout.accept(timedOutColor);
+        }
+    }
+
     /**
      * Cancel grace timer for a game
      */
@@ -141,6 +217,8 @@ public class ClockService {
      */
     public void removeClock(String gameId) {
         clocks.remove(gameId);
+        disarmExpiry(gameId);
+        timeoutHandlers.remove(gameId);
         cancelGraceTimer(gameId);
         log.info("Clock removed for game {}", gameId);
     }
@@ -155,14 +233,21 @@ public class ClockService {
     /**
      * Shutdown scheduler on service stop
      */
+    @PreDestroy
     public void shutdown() {
-        scheduler.shutdown();
+        timingWheel.stop();
+        shutdown(scheduler);
+        shutdown(callbackExecutor);
+    }
+
+    private static void shutdown(ExecutorService executor) {
+        executor.shutdown();
         try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
             }
         } catch (InterruptedException e) {
-            scheduler.shutdownNow();
+            executor.shutdownNow();
             Thread.currentThread().interrupt();
         }
     }
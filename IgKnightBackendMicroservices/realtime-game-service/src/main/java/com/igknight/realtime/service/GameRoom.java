@@ -0,0 +1,108 @@
+package com.igknight.realtime.service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Sessions of one game: its players, and its spectators split into shards
+ *
+ * Both are concurrent hash sets, so a session joining or leaving costs O(1)
+ * however many are watching, and a broadcast iterates them in place without
+ * copying. Each spectator shard is fanned out by its own worker.
+ */
+class GameRoom {
+
+    private final Set<WebSocketSession> players = ConcurrentHashMap.newKeySet();
+    private final Set<WebSocketSession>[] spectatorShards;
+    private final AtomicInteger spectatorCount = new AtomicInteger();
+
+    // Latest CLOCK_UPDATE not yet sent to spectators
+    private final AtomicReference<OutboundFrame> pendingClockUpdate = new AtomicReference<>();
+
+    // GAME_STATE and CLOCK_UPDATE as spectators currently see them, sent to each spectator that joins
+    private final AtomicReference<OutboundFrame> spectatorState = new AtomicReference<>();
+    private volatile OutboundFrame spectatorClock;
+
+    @SuppressWarnings("unchecked")
+    GameRoom(int shards) {
+        this.spectatorShards = new Set[shards];
+        for (int i = 0; i < shards; i++) {
+            spectatorShards[i] = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    Set<WebSocketSession> players() {
+        return players;
+    }
+
+    int shardCount() {
+        return spectatorShards.length;
+    }
+
+    Set<WebSocketSession> spectatorShard(int shard) {
+        return spectatorShards[shard];
+    }
+
+    int shardOf(WebSocketSession session) {
+        return Math.floorMod(session.getId().hashCode(), spectatorShards.length);
+    }
+
+    void addSpectator(WebSocketSession session) {
+        if (spectatorShards[shardOf(session)].add(session)) {
+            spectatorCount.incrementAndGet();
+        }
+    }
+
+    boolean removeSpectator(WebSocketSession session) {
+        if (spectatorShards[shardOf(session)].remove(session)) {
+            spectatorCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    int spectatorCount() {
+        return spectatorCount.get();
+    }
+
+    boolean isEmpty() {
+        return players.isEmpty() && spectatorCount.get() == 0;
+    }
+
+    /**
+     * Replace any clock update still waiting for the next flush
+     */
+    void offerClockUpdate(OutboundFrame frame) {
+        pendingClockUpdate.set(frame);
+    }
+
+    /**
+     * The latest clock update since the last call, or null if there was none
+     */
+    OutboundFrame takeClockUpdate() {
+        return pendingClockUpdate.getAndSet(null);
+    }
+
+    OutboundFrame spectatorState() {
+        return spectatorState.get();
+    }
+
+    /**
+     * @return the state it replaced, or null for the room's first
+     */
+    OutboundFrame swapSpectatorState(OutboundFrame state) {
+        return spectatorState.getAndSet(state);
+    }
+
+    OutboundFrame spectatorClock() {
+        return spectatorClock;
+    }
+
+    void setSpectatorClock(OutboundFrame clockUpdate) {
+        this.spectatorClock = clockUpdate;
+    }
+}
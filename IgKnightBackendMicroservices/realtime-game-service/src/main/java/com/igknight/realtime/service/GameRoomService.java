@@ -4,25 +4,48 @@ import java.io.IOException;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
 /**
  * Service to manage game rooms and WebSocket sessions
+ *
+ * Messages to a session that has joined a room go through its {@link SessionOutbox},
+ * so broadcasting never waits on a client's network. A broadcast queues the same
+ * {@link OutboundFrame} for every session, so it is encoded once per room.
+ *
+ * Besides its players, a room holds read-only spectators. Players get every
+ * message at once. Spectators get them after {@code websocket.spectator.move-delay-ms},
+ * and clock updates at most once per {@code websocket.spectator.clock-interval-ms}.
+ * A room's spectators are split into one shard per fan-out worker, and each shard
+ * is queued on a different worker. A game with thousands of watchers therefore
+ * spreads over all workers, taking one turn on each per message, and never holds
+ * up other rooms for the whole of its fan-out.
  */
 @Service
 public class GameRoomService {
 
     private static final Logger log = LoggerFactory.getLogger(GameRoomService.class);
+    private static final String QUEUE_DEPTH_METRIC = "websocket.outbound.queue.depth";
 
     // Thread-safe mappings
-    // gameId -> Set of WebSocketSessions in that game
-    private final Map<String, Set<WebSocketSession>> gameRooms = new ConcurrentHashMap<>();
+    // gameId -> players and spectators in that game
+    private final Map<String, GameRoom> gameRooms = new ConcurrentHashMap<>();
 
     // sessionId -> gameId
     private final Map<String, String> sessionToGameId = new ConcurrentHashMap<>();
@@ -30,6 +53,48 @@ public class GameRoomService {
     // sessionId -> userId
     private final Map<String, String> sessionToUserId = new ConcurrentHashMap<>();
 
+    // sessionIds of spectators
+    private final Set<String> spectatorSessions = ConcurrentHashMap.newKeySet();
+
+    // sessionId -> outbound queue, with its queue depth gauge (players only, to bound the metric's tags)
+    private final Map<String, SessionOutbox> outboxes = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> queueDepthGauges = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter slowConsumerDisconnects;
+    private final long sendTimeLimitMs;
+    private final long bufferSizeLimit;
+
+    // Spectator delivery: move delay and clock coalescing on the scheduler, fan-out on the workers
+    private final long spectatorMoveDelayMs;
+    private final ScheduledExecutorService spectatorScheduler;
+    private final ExecutorService[] fanoutWorkers;
+
+    public GameRoomService(MeterRegistry meterRegistry,
+                           @Value("${websocket.outbound.send-time-limit-ms:5000}") long sendTimeLimitMs,
+                           @Value("${websocket.outbound.buffer-size-limit:524288}") long bufferSizeLimit,
+                           @Value("${websocket.spectator.move-delay-ms:0}") long spectatorMoveDelayMs,
+                           @Value("${websocket.spectator.clock-interval-ms:1000}") long spectatorClockIntervalMs,
+                           @Value("${websocket.spectator.fanout-threads:4}") int fanoutThreads) {
+        this.meterRegistry = meterRegistry;
+        this.slowConsumerDisconnects = Counter.builder("websocket.outbound.slow.consumer.disconnects")
+                .description("Sessions closed for not keeping up with their messages")
+                .register(meterRegistry);
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.spectatorMoveDelayMs = Math.max(0, spectatorMoveDelayMs);
+
+        this.fanoutWorkers = new ExecutorService[Math.max(1, fanoutThreads)];
+        for (int i = 0; i < fanoutWorkers.length; i++) {
+            fanoutWorkers[i] = Executors.newSingleThreadExecutor(
+                    Thread.ofPlatform().name("spectator-fanout-" + i).daemon().factory());
+        }
+        this.spectatorScheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("spectator-scheduler").daemon().factory());
+        spectatorScheduler.scheduleAtFixedRate(this::flushClockUpdates,
+                spectatorClockIntervalMs, spectatorClockIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
     /**
      * Add a session to a game room
      * @param gameId The game ID
@@ -39,15 +104,79 @@ public class GameRoomService {
     public void addSessionToGame(String gameId, String userId, WebSocketSession session) {
         String sessionId = session.getId();
 
-        // Add session to game room
-        gameRooms.computeIfAbsent(gameId, k -> new CopyOnWriteArraySet<>()).add(session);
+        // Give the session its outbound queue before anyone can broadcast to it
+        SessionOutbox outbox = createOutbox(session);
+        queueDepthGauges.put(sessionId, Gauge.builder(QUEUE_DEPTH_METRIC, outbox, SessionOutbox::getQueuedMessages)
+                .description("Messages waiting to be sent to a session")
+                .tag("session", sessionId)
+                .tag("game", gameId)
+                .register(meterRegistry));
+
+        // Add session to game room; in compute, so an emptied room cannot be removed under it
+        GameRoom room = gameRooms.compute(gameId, (id, existing) -> {
+            GameRoom joined = existing != null ? existing : new GameRoom(fanoutWorkers.length);
+            joined.players().add(session);
+            return joined;
+        });
 
         // Map session to gameId and userId
         sessionToGameId.put(sessionId, gameId);
         sessionToUserId.put(sessionId, userId);
 
         log.info("Session {} (user {}) joined game {}", sessionId, userId, gameId);
-        log.info("Game {} now has {} players", gameId, gameRooms.get(gameId).size());
+        log.info("Game {} now has {} players", gameId, room.players().size());
+    }
+
+    /**
+     * Add a read-only spectator to a game room
+     * The spectator is sent {@code connected}, then the game state and clock as other
+     * spectators see them. A spectator who joins before the room's first game state
+     * has reached spectators is sent that state when it does
+     * @param gameId The game ID
+     * @param userId The user ID
+     * @param session The WebSocket session
+     * @param connected The encoded connection confirmation
+     * @return false if the game is not being played here, so there is nothing to watch
+     */
+    public boolean addSpectatorToGame(String gameId, String userId, WebSocketSession session, OutboundFrame connected) {
+        String sessionId = session.getId();
+        GameRoom existing = gameRooms.get(gameId);
+        // A room whose players all dropped out can still be watched while they may reconnect
+        if (existing == null || (existing.players().isEmpty() && existing.spectatorState() == null)) {
+            return false;
+        }
+
+        createOutbox(session);
+        GameRoom room = gameRooms.computeIfPresent(gameId, (id, joined) -> {
+            joined.addSpectator(session);
+            return joined;
+        });
+        if (room == null) {
+            outboxes.remove(sessionId).close();
+            return false;
+        }
+
+        spectatorSessions.add(sessionId);
+        sessionToGameId.put(sessionId, gameId);
+        sessionToUserId.put(sessionId, userId);
+
+        // On the spectator's shard worker, so it is ordered with the broadcasts fanned out there
+        submitToShard(gameId, room.shardOf(session), () -> {
+            if (session.isOpen()) {
+                send(session, connected.message());
+            }
+            OutboundFrame state = room.spectatorState();
+            OutboundFrame clockUpdate = room.spectatorClock();
+            if (state != null && session.isOpen()) {
+                send(session, state.message());
+            }
+            if (clockUpdate != null && session.isOpen()) {
+                send(session, clockUpdate.message());
+            }
+        });
+
+        log.debug("Session {} (user {}) is watching game {}", sessionId, userId, gameId);
+        return true;
     }
 
     /**
@@ -59,20 +188,32 @@ public class GameRoomService {
         String sessionId = session.getId();
         String gameId = sessionToGameId.remove(sessionId);
         String userId = sessionToUserId.remove(sessionId);
+        boolean spectator = spectatorSessions.remove(sessionId);
+
+        SessionOutbox outbox = outboxes.remove(sessionId);
+        if (outbox != null) {
+            outbox.close();
+        }
+        Gauge queueDepth = queueDepthGauges.remove(sessionId);
+        if (queueDepth != null) {
+            meterRegistry.remove(queueDepth);
+        }
 
         if (gameId != null) {
-            Set<WebSocketSession> sessions = gameRooms.get(gameId);
-            if (sessions != null) {
-                sessions.remove(session);
-                log.info("Session {} (user {}) left game {}", sessionId, userId, gameId);
-                log.info("Game {} now has {} players", gameId, sessions.size());
-
-                // Clean up empty game rooms
-                if (sessions.isEmpty()) {
-                    gameRooms.remove(gameId);
+            // Clean up empty game rooms, atomically with the removal
+            gameRooms.computeIfPresent(gameId, (id, room) -> {
+                if (spectator) {
+                    room.removeSpectator(session);
+                } else if (room.players().remove(session)) {
+                    log.info("Session {} (user {}) left game {}", sessionId, userId, gameId);
+                    log.info("Game {} now has {} players", gameId, room.players().size());
+                }
+                if (room.isEmpty()) {
                     log.info("Game {} room removed (empty)", gameId);
+                    return null;
                 }
-            }
+                return room;
+            });
         }
 
         return gameId;
@@ -96,70 +237,201 @@ public class GameRoomService {
         return sessionToGameId.get(session.getId());
     }
 
+    /**
+     * Check if a session joined its game as a spectator
+     * @param session The WebSocket session
+     * @return true for a spectator, false for a player or a session in no game
+     */
+    public boolean isSpectator(WebSocketSession session) {
+        return spectatorSessions.contains(session.getId());
+    }
+
     /**
      * Broadcast a message to all sessions in a game room
-     * THREAD-SAFE: Synchronizes on each session to prevent concurrent writes
+     * Only queues the message for each session; their writers send it. Spectators
+     * get it after the spectator move delay
      * @param gameId The game ID
-     * @param message The message to broadcast
+     * @param frame The encoded message to broadcast
      */
-    public void broadcastToGame(String gameId, String message) {
-        Set<WebSocketSession> sessions = gameRooms.get(gameId);
-        if (sessions == null || sessions.isEmpty()) {
+    public void broadcastToGame(String gameId, OutboundFrame frame) {
+        GameRoom room = gameRooms.get(gameId);
+        if (room == null) {
             log.warn("No sessions in game {} to broadcast to", gameId);
             return;
         }
 
-        TextMessage textMessage = new TextMessage(message);
-        int successCount = 0;
-        int failCount = 0;
+        sendToPlayers(gameId, room, frame);
+        afterSpectatorDelay(() -> fanOutToSpectators(gameId, room, frame));
+    }
 
-        for (WebSocketSession session : sessions) {
-            if (session.isOpen()) {
-                // Synchronize on session to prevent concurrent writes
-                synchronized (session) {
-                    try {
-                        session.sendMessage(textMessage);
-                        successCount++;
-                    } catch (IOException e) {
-                        log.error("Failed to send message to session {}", session.getId(), e);
-                        failCount++;
-                    }
-                }
-            } else {
-                failCount++;
-            }
+    /**
+     * Broadcast a CLOCK_UPDATE: to players at once, to spectators with the next coalesced flush
+     * @param gameId The game ID
+     * @param frame The encoded clock update
+     */
+    public void broadcastClockUpdate(String gameId, OutboundFrame frame) {
+        GameRoom room = gameRooms.get(gameId);
+        if (room == null) {
+            return;
         }
 
-        log.debug("Broadcast to game {}: {} successful, {} failed", gameId, successCount, failCount);
+        sendToPlayers(gameId, room, frame);
+        room.offerClockUpdate(frame);
+    }
+
+    /**
+     * Record the GAME_STATE that spectators joining from now on are sent
+     * Takes effect after the spectator move delay, in order with the broadcasts. The
+     * room's first state also goes to the spectators who joined before it
+     * @param gameId The game ID
+     * @param frame The encoded game state
+     */
+    public void publishSpectatorState(String gameId, OutboundFrame frame) {
+        GameRoom room = gameRooms.get(gameId);
+        if (room != null) {
+            afterSpectatorDelay(() -> {
+                if (room.swapSpectatorState(frame) == null) {
+                    fanOutToSpectators(gameId, room, frame);
+                }
+            });
+        }
     }
 
     /**
      * Send a message to a specific session
-     * THREAD-SAFE: Synchronizes on session to prevent concurrent writes
+     * THREAD-SAFE: Queued behind the session's other messages
      * @param session The WebSocket session
-     * @param message The message to send
+     * @param frame The encoded message to send
      */
-    public void sendToSession(WebSocketSession session, String message) {
+    public void sendToSession(WebSocketSession session, OutboundFrame frame) {
         if (session.isOpen()) {
-            // Synchronize on session to prevent concurrent writes
-            synchronized (session) {
-                try {
-                    session.sendMessage(new TextMessage(message));
-                } catch (IOException e) {
-                    log.error("Failed to send message to session {}", session.getId(), e);
+            send(session, frame.message());
+        }
+    }
+
+    /**
+     * Get the number of messages waiting to be sent to a session
+     * @param session The WebSocket session
+     * @return The queue depth (0 if the session is not in a game)
+     */
+    public int getQueuedMessages(WebSocketSession session) {
+        SessionOutbox outbox = outboxes.get(session.getId());
+        return outbox != null ? outbox.getQueuedMessages() : 0;
+    }
+
+    private SessionOutbox createOutbox(WebSocketSession session) {
+        SessionOutbox outbox = new SessionOutbox(session, sendTimeLimitMs, bufferSizeLimit, slowConsumerDisconnects::increment);
+        outboxes.put(session.getId(), outbox);
+        return outbox;
+    }
+
+    private void sendToPlayers(String gameId, GameRoom room, OutboundFrame frame) {
+        TextMessage textMessage = frame.message();
+        int successCount = 0;
+        int failCount = 0;
+
+        for (WebSocketSession session : room.players()) {
+            if (session.isOpen() && send(session, textMessage)) {
+                successCount++;
+            } else {
+                failCount++;
+            }
+        }
+
+        log.debug("Broadcast to game {}: {} queued, {} failed", gameId, successCount, failCount);
+    }
+
+    private void afterSpectatorDelay(Runnable task) {
+        if (spectatorMoveDelayMs == 0) {
+            task.run();
+        } else {
+            // One scheduler thread and one delay, so tasks still run in the order they were submitted
+            spectatorScheduler.schedule(task, spectatorMoveDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void fanOutToSpectators(String gameId, GameRoom room, OutboundFrame frame) {
+        TextMessage textMessage = frame.message();
+        for (int shard = 0; shard < room.shardCount(); shard++) {
+            Set<WebSocketSession> sessions = room.spectatorShard(shard);
+            if (sessions.isEmpty()) {
+                continue;
+            }
+            submitToShard(gameId, shard, () -> {
+                for (WebSocketSession session : sessions) {
+                    if (session.isOpen()) {
+                        send(session, textMessage);
+                    }
                 }
+            });
+        }
+    }
+
+    // A shard always goes to the same worker, which keeps each spectator's messages in order
+    private void submitToShard(String gameId, int shard, Runnable task) {
+        ExecutorService worker = fanoutWorkers[Math.floorMod(gameId.hashCode() + shard, fanoutWorkers.length)];
+        worker.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Spectator fan-out failed for game {}", gameId, e);
+            }
+        });
+    }
+
+    // Sends each room's latest clock update to its spectators, dropping the ones it superseded
+    private void flushClockUpdates() {
+        try {
+            gameRooms.forEach((gameId, room) -> {
+                OutboundFrame clockUpdate = room.takeClockUpdate();
+                if (clockUpdate != null) {
+                    afterSpectatorDelay(() -> {
+                        room.setSpectatorClock(clockUpdate);
+                        fanOutToSpectators(gameId, room, clockUpdate);
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            // Thrown out of a periodic task, it would cancel all further flushes
+            log.error("Failed to flush spectator clock updates", e);
+        }
+    }
+
+    private boolean send(WebSocketSession session, TextMessage message) {
+        SessionOutbox outbox = outboxes.get(session.getId());
+        if (outbox != null) {
+            return outbox.offer(message);
+        }
+        // Not in a room (yet): nothing else writes to it, send directly
+        synchronized (session) {
+            try {
+                session.sendMessage(message);
+                return true;
+            } catch (IOException e) {
+                log.error("Failed to send message to session {}", session.getId(), e);
+                return false;
             }
         }
     }
 
     /**
-     * Get the number of sessions in a game
+     * Get the number of players connected to a game
      * @param gameId The game ID
-     * @return The number of sessions
+     * @return The number of player sessions, not counting spectators
      */
     public int getGameRoomSize(String gameId) {
-        Set<WebSocketSession> sessions = gameRooms.get(gameId);
-        return sessions != null ? sessions.size() : 0;
+        GameRoom room = gameRooms.get(gameId);
+        return room != null ? room.players().size() : 0;
+    }
+
+    /**
+     * Get the number of spectators watching a game
+     * @param gameId The game ID
+     * @return The number of spectator sessions
+     */
+    public int getSpectatorCount(String gameId) {
+        GameRoom room = gameRooms.get(gameId);
+        return room != null ? room.spectatorCount() : 0;
     }
 
     /**
@@ -170,4 +442,15 @@ public class GameRoomService {
     public boolean gameRoomExists(String gameId) {
         return gameRooms.containsKey(gameId);
     }
+
+    /**
+     * Stop spectator delivery on service stop
+     */
+    @PreDestroy
+    public void shutdown() {
+        spectatorScheduler.shutdownNow();
+        for (ExecutorService worker : fanoutWorkers) {
+            worker.shutdownNow();
+        }
+    }
 }
@@ -137,14 +137,31 @@ public class GameServiceClient {
     }
 
     /**
-     * Report timeout to Game Service (player ran out of time or disconnect timeout)
+     * Report to Game Service that a player ran out of time on their clock
+     * Game Service only accepts it for the side to move, once its own clock agrees
      * @param gameId The game ID
      * @param userId The user ID of the player timing out
      * @return GameServiceResponse on success
      * @throws GameServiceException on failure
      */
     public GameServiceResponse reportTimeout(String gameId, String userId) {
-        String url = gameServiceUrl + "/api/chess/games/" + gameId + "/resign";
+        return endGame(gameId, userId, "timeout");
+    }
+
+    /**
+     * Report to Game Service that a disconnected player did not return within the grace period
+     * Recorded as a resignation: the player's clock was paused, so they did not lose on time
+     * @param gameId The game ID
+     * @param userId The user ID of the player who left
+     * @return GameServiceResponse on success
+     * @throws GameServiceException on failure
+     */
+    public GameServiceResponse reportAbandonment(String gameId, String userId) {
+        return endGame(gameId, userId, "resign");
+    }
+
+    private GameServiceResponse endGame(String gameId, String userId, String action) {
+        String url = gameServiceUrl + "/api/chess/games/" + gameId + "/" + action;
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("X-User-Id", userId);
@@ -152,7 +169,7 @@ public class GameServiceClient {
         HttpEntity<Void> entity = new HttpEntity<>(headers);
 
         try {
-            log.info("Reporting timeout to Game Service: gameId={}, userId={}", gameId, userId);
+            log.info("Reporting {} to Game Service: gameId={}, userId={}", action, gameId, userId);
 
             ResponseEntity<GameServiceResponse> response = restTemplate.exchange(
                     url,
@@ -162,7 +179,7 @@ public class GameServiceClient {
             );
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                log.info("Timeout reported successfully: gameId={}", gameId);
+                log.info("Reported {} successfully: gameId={}", action, gameId);
                 return response.getBody();
             } else {
                 throw new GameServiceException("Unexpected response from Game Service");
@@ -170,7 +187,7 @@ public class GameServiceClient {
 
         } catch (HttpClientErrorException e) {
             String errorMessage = extractErrorMessage(e);
-            log.warn("Failed to report timeout: gameId={}, error={}", gameId, errorMessage);
+            log.warn("Failed to report {}: gameId={}, error={}", action, gameId, errorMessage);
             throw new GameServiceException(errorMessage);
 
         } catch (ResourceAccessException e) {
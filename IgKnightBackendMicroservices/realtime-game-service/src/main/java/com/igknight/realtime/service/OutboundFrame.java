@@ -0,0 +1,54 @@
+package com.igknight.realtime.service;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.web.socket.TextMessage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * An outbound message, encoded once and then shared by every session it is sent to
+ *
+ * The payload is serialized straight to UTF-8 bytes, which the wrapped
+ * {@link TextMessage} keeps: queueing the frame for another session, or
+ * accounting for its size, costs no further encoding or copying.
+ */
+public final class OutboundFrame {
+
+    private final TextMessage message;
+
+    private OutboundFrame(byte[] utf8) {
+        this.message = new TextMessage(utf8);
+    }
+
+    /**
+     * Serialize a payload as JSON; Jackson writes it through its pooled byte buffers
+     */
+    public static OutboundFrame json(ObjectMapper objectMapper, Object payload) throws JsonProcessingException {
+        return new OutboundFrame(objectMapper.writeValueAsBytes(payload));
+    }
+
+    /**
+     * A payload that is already text
+     */
+    public static OutboundFrame text(String payload) {
+        return new OutboundFrame(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public TextMessage message() {
+        return message;
+    }
+
+    /**
+     * Encoded size in bytes
+     */
+    public int size() {
+        return message.getPayloadLength();
+    }
+
+    @Override
+    public String toString() {
+        return message.getPayload();
+    }
+}
@@ -0,0 +1,139 @@
+package com.igknight.realtime.service;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Outbound message queue of one WebSocket session, written to the client by a
+ * virtual thread of its own
+ *
+ * Senders only enqueue, so a client that reads slowly holds up nobody but
+ * itself. It is disconnected as a slow consumer once its unsent messages exceed
+ * {@code bufferSizeLimit} bytes, or a single send has been blocked for longer
+ * than {@code sendTimeLimitMillis}; both are checked whenever a message is
+ * queued for it.
+ */
+public class SessionOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionOutbox.class);
+
+    private final WebSocketSession session;
+    private final long sendTimeLimitNanos;
+    private final long bufferSizeLimit;
+    private final Runnable onSlowConsumer;
+
+    private final BlockingQueue<WebSocketMessage<?>> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger queuedMessages = new AtomicInteger();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final Thread writer;
+    // nanoTime the send in progress started at, or 0 while the writer is waiting for messages
+    private volatile long sendStartNanos;
+
+    public SessionOutbox(WebSocketSession session, long sendTimeLimitMillis, long bufferSizeLimit, Runnable onSlowConsumer) {
+        this.session = session;
+        this.sendTimeLimitNanos = sendTimeLimitMillis * 1_000_000L;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.onSlowConsumer = onSlowConsumer;
+        this.writer = Thread.ofVirtual().name("ws-outbox-" + session.getId()).start(this::drain);
+    }
+
+    /**
+     * Queue a message for the client, without waiting for it to be sent
+     * @return false if the session is closed, or was just closed for falling too far behind
+     */
+    public boolean offer(WebSocketMessage<?> message) {
+        if (closed.get()) {
+            return false;
+        }
+        long sendStart = sendStartNanos;
+        if (sendStart != 0 && System.nanoTime() - sendStart > sendTimeLimitNanos) {
+            disconnectSlowConsumer("send blocked for more than " + sendTimeLimitNanos / 1_000_000 + "ms");
+            return false;
+        }
+        long bytes = queuedBytes.addAndGet(message.getPayloadLength());
+        if (bytes > bufferSizeLimit) {
+            disconnectSlowConsumer(bytes + " bytes queued");
+            return false;
+        }
+        queuedMessages.incrementAndGet();
+        queue.add(message);
+        return true;
+    }
+
+    public int getQueuedMessages() {
+        return queuedMessages.get();
+    }
+
+    public long getQueuedBytes() {
+        return queuedBytes.get();
+    }
+
+    /**
+     * Stop the writer and drop whatever has not been sent
+     * @return true for the call that closed the outbox, false if it was already closed
+     */
+    public boolean close() {
+        if (!closed.compareAndSet(false, true)) {
+            return false;
+        }
+        writer.interrupt();
+        queue.clear();
+        queuedMessages.set(0);
+        queuedBytes.set(0);
+        return true;
+    }
+
+    // Of several senders finding the session too far behind at once, only the one that closes it disconnects it
+    private void disconnectSlowConsumer(String reason) {
+        if (!close()) {
+            return;
+        }
+        log.warn("Disconnecting slow consumer session {}: {}", session.getId(), reason);
+        onSlowConsumer.run();
+        // Closing may block behind the stuck send, so not on the caller's thread
+        Thread.ofVirtual().start(() -> {
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.debug("Failed to close slow session {}", session.getId(), e);
+            }
+        });
+    }
+
+    private void drain() {
+        while (!closed.get()) {
+            WebSocketMessage<?> message;
+            try {
+                message = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            queuedMessages.decrementAndGet();
+            queuedBytes.addAndGet(-message.getPayloadLength());
+            if (!session.isOpen()) {
+                continue;
+            }
+            sendStartNanos = System.nanoTime();
+            try {
+                session.sendMessage(message);
+            } catch (IOException | RuntimeException e) {
+                if (!closed.get()) {
+                    log.error("Failed to send message to session {}", session.getId(), e);
+                }
+            } finally {
+                sendStartNanos = 0;
+            }
+        }
+    }
+}
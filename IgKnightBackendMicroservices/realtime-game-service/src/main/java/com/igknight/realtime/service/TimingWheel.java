@@ -0,0 +1,243 @@
+package com.igknight.realtime.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hierarchical timing wheel: runs tasks at a deadline with a resolution of one tick.
+ *
+ * Level 0 has one bucket per tick for the next {@code wheelSize} ticks; each
+ * further level has buckets {@code wheelSize} times as wide. A timeout goes into
+ * the coarsest level it needs and is moved down a level whenever its bucket comes
+ * up, until it reaches level 0 and fires. Scheduling and cancelling are O(1) and
+ * a single thread advances the wheel, however many timeouts are pending.
+ *
+ * A task never runs before its deadline, and at most one tick after it. Tasks
+ * run on the given executor, not on the wheel's thread.
+ */
+public class TimingWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+
+    private static final int LEVELS = 4;
+
+    private final long tickNanos;
+    private final int wheelBits;
+    private final int mask;
+    private final Bucket[][] buckets;
+    private final Executor executor;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private final List<Timeout> expired = new ArrayList<>();
+    private Thread worker;
+    private volatile boolean running = true;
+
+    // Next tick to process; guarded by this
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, int wheelSize, Executor executor, String threadName) {
+        this(tickMillis, wheelSize, executor, System::nanoTime);
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    // Without a thread of its own: the caller advances the wheel through expireDue(), against its own clock
+    TimingWheel(long tickMillis, int wheelSize, Executor executor, LongSupplier nanoClock) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1) << 1);
+        this.wheelBits = Integer.numberOfTrailingZeros(size);
+        this.mask = size - 1;
+        this.buckets = new Bucket[LEVELS][size];
+        for (Bucket[] level : buckets) {
+            for (int i = 0; i < size; i++) {
+                level[i] = new Bucket();
+            }
+        }
+        this.executor = executor;
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Runs {@code task} once {@code delay} has elapsed, unless the returned timeout is cancelled first.
+     */
+    public Timeout schedule(long delay, TimeUnit unit, Runnable task) {
+        long deadlineNanos = elapsedNanos() + Math.max(0, unit.toNanos(delay));
+        // Rounded up, so the task cannot run early
+        Timeout timeout = new Timeout((deadlineNanos + tickNanos - 1) / tickNanos, task);
+        synchronized (this) {
+            add(timeout);
+        }
+        return timeout;
+    }
+
+    public void stop() {
+        running = false;
+        if (worker == null) {
+            return;
+        }
+        LockSupport.unpark(worker);
+        try {
+            worker.join(TimeUnit.NANOSECONDS.toMillis(tickNanos) * 10 + 1_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Caller holds the lock
+    private void add(Timeout timeout) {
+        long deadline = Math.max(timeout.deadlineTick, currentTick);
+        long delta = deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >>> (wheelBits * (level + 1)) != 0) {
+            level++;
+        }
+        // Beyond the last level's range: park it in the farthest bucket, to be placed again from there
+        if (delta >>> (wheelBits * LEVELS) != 0) {
+            deadline = currentTick + (1L << (wheelBits * LEVELS)) - 1;
+        }
+        buckets[level][(int) (deadline >>> (wheelBits * level)) & mask].add(timeout);
+    }
+
+    private void run() {
+        while (running) {
+            expireDue();
+            long sleepNanos;
+            synchronized (this) {
+                sleepNanos = currentTick * tickNanos - elapsedNanos();
+            }
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+            }
+        }
+    }
+
+    // Hands every task whose tick has passed to the executor; called by one thread at a time
+    void expireDue() {
+        long now = elapsedNanos();
+        synchronized (this) {
+            // Catch up on every tick that has passed, e.g. after a long GC pause
+            while (currentTick * tickNanos <= now) {
+                advance(expired);
+            }
+        }
+        for (Timeout timeout : expired) {
+            try {
+                executor.execute(timeout.task);
+            } catch (RuntimeException e) {
+                log.error("Failed to run timeout task", e);
+            }
+        }
+        expired.clear();
+    }
+
+    private long elapsedNanos() {
+        return nanoClock.getAsLong() - startNanos;
+    }
+
+    // Caller holds the lock
+    private void advance(List<Timeout> expired) {
+        long tick = currentTick;
+        // Move timeouts down from each level whose bucket starts at this tick, coarsest first
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((tick & ((1L << (wheelBits * level)) - 1)) == 0) {
+                Bucket bucket = buckets[level][(int) (tick >>> (wheelBits * level)) & mask];
+                for (Timeout timeout = bucket.clear(); timeout != null; ) {
+                    Timeout next = timeout.next;
+                    timeout.next = null;
+                    add(timeout);
+                    timeout = next;
+                }
+            }
+        }
+        Bucket due = buckets[0][(int) tick & mask];
+        for (Timeout timeout = due.clear(); timeout != null; ) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            if (timeout.deadlineTick <= tick) {
+                expired.add(timeout);
+            } else {
+                add(timeout);
+            }
+            timeout = next;
+        }
+        currentTick = tick + 1;
+    }
+
+    /**
+     * A scheduled task, cancellable until it has been handed to the executor.
+     */
+    public final class Timeout {
+        private final long deadlineTick;
+        private final Runnable task;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(long deadlineTick, Runnable task) {
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        /**
+         * @return false if the task has already been handed over to run, or was cancelled before
+         */
+        public boolean cancel() {
+            synchronized (TimingWheel.this) {
+                if (bucket == null) {
+                    return false;
+                }
+                bucket.remove(this);
+                return true;
+            }
+        }
+    }
+
+    // Doubly-linked, so a cancelled timeout is unlinked in place
+    private static final class Bucket {
+        private Timeout head;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        // Detaches and returns the whole list, linked through next
+        private Timeout clear() {
+            Timeout first = head;
+            head = null;
+            for (Timeout timeout = first; timeout != null; timeout = timeout.next) {
+                timeout.bucket = null;
+                timeout.prev = null;
+            }
+            return first;
+        }
+    }
+}
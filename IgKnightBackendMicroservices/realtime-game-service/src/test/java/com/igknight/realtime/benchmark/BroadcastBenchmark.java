@@ -0,0 +1,96 @@
+package com.igknight.realtime.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.socket.TextMessage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.igknight.realtime.dto.MoveResultMessage;
+import com.igknight.realtime.dto.WebSocketMessage;
+import com.igknight.realtime.service.OutboundFrame;
+
+/**
+ * Cost of one MOVE_RESULT broadcast to a room, as a String message against a shared
+ * {@link OutboundFrame}. Each recipient's outbox reads the payload length when the
+ * message is queued and again when it is sent.
+ *
+ * Run with {@code -prof gc} for the bytes allocated per broadcast ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class BroadcastBenchmark {
+
+    @Param({"2", "10", "50"})
+    private int recipients;
+
+    private ObjectMapper objectMapper;
+    private WebSocketMessage event;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+
+        // The position after 1. e4, with Black's twenty replies
+        Map<String, List<String>> legalMoves = new LinkedHashMap<>();
+        for (char file = 'a'; file <= 'h'; file++) {
+            legalMoves.put(file + "7", List.of(file + "6", file + "5"));
+        }
+        legalMoves.put("b8", List.of("a6", "c6"));
+        legalMoves.put("g8", List.of("f6", "h6"));
+
+        MoveResultMessage moveResult = new MoveResultMessage();
+        moveResult.setFrom("e2");
+        moveResult.setTo("e4");
+        moveResult.setFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+        moveResult.setNextTurn("BLACK");
+        moveResult.setPiece("PAWN");
+        moveResult.setSan("e4");
+        moveResult.setIsCapture(false);
+        moveResult.setIsCheck(false);
+        moveResult.setIsCheckmate(false);
+        moveResult.setLegalMoves(legalMoves);
+        event = new WebSocketMessage("MOVE_RESULT", moveResult);
+    }
+
+    @Benchmark
+    public void string(Blackhole blackhole) throws Exception {
+        // As before: a String message, re-encoded each time its length is read
+        TextMessage message = new TextMessage(objectMapper.writeValueAsString(event));
+        fanOut(message, blackhole);
+    }
+
+    @Benchmark
+    public void frame(Blackhole blackhole) throws Exception {
+        fanOut(OutboundFrame.json(objectMapper, event).message(), blackhole);
+    }
+
+    private void fanOut(TextMessage message, Blackhole blackhole) {
+        List<TextMessage> queued = new ArrayList<>(recipients);
+        for (int i = 0; i < recipients; i++) {
+            blackhole.consume(message.getPayloadLength());
+            queued.add(message);
+        }
+        for (TextMessage sent : queued) {
+            blackhole.consume(sent.getPayloadLength());
+            blackhole.consume(sent.getPayload());
+        }
+    }
+}
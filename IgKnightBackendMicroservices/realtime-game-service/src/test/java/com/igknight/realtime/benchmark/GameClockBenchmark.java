@@ -0,0 +1,130 @@
+package com.igknight.realtime.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.igknight.realtime.model.GameClock;
+
+/**
+ * Throughput of one clock read by several threads (CLOCK_UPDATE broadcasts) while
+ * another thread keeps moving, for GameClock against the lock-based clock it replaced.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Group)
+public class GameClockBenchmark {
+
+    private GameClock clock;
+    private LegacyClock legacyClock;
+
+    @Setup
+    public void setUp() {
+        // Enough time that no side runs out during the run
+        clock = new GameClock("1", TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(1), GameClock.WHITE);
+        legacyClock = new LegacyClock(TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(1));
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(3)
+    public void snapshotRead(Blackhole blackhole) {
+        GameClock.Snapshot snapshot = clock.snapshot();
+        long now = System.nanoTime();
+        blackhole.consume(snapshot.whiteTimeMs(now));
+        blackhole.consume(snapshot.blackTimeMs(now));
+        blackhole.consume(snapshot.activeColor());
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(1)
+    public GameClock.Snapshot snapshotMove() {
+        return clock.completeMove(0);
+    }
+
+    @Benchmark
+    @Group("legacy")
+    @GroupThreads(3)
+    public void legacyRead(Blackhole blackhole) {
+        // As CLOCK_UPDATE was built: tick, then read each field
+        legacyClock.tick();
+        blackhole.consume(legacyClock.getWhiteTimeMs());
+        blackhole.consume(legacyClock.getBlackTimeMs());
+        blackhole.consume(legacyClock.getActiveColor());
+    }
+
+    @Benchmark
+    @Group("legacy")
+    @GroupThreads(1)
+    public void legacyMove() {
+        legacyClock.tick();
+        legacyClock.switchActiveColor();
+    }
+
+    // The previous GameClock: boxed times, String color, wall-clock time and a lock on every tick
+    private static final class LegacyClock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Long whiteTimeMs;
+        private Long blackTimeMs;
+        private String activeColor = "WHITE";
+        private Long lastTickTimestamp = System.currentTimeMillis();
+
+        private LegacyClock(long whiteTimeMs, long blackTimeMs) {
+            this.whiteTimeMs = whiteTimeMs;
+            this.blackTimeMs = blackTimeMs;
+        }
+
+        private void tick() {
+            lock.lock();
+            try {
+                long now = System.currentTimeMillis();
+                long elapsed = now - lastTickTimestamp;
+                if ("WHITE".equals(activeColor)) {
+                    whiteTimeMs = Math.max(0, whiteTimeMs - elapsed);
+                } else if ("BLACK".equals(activeColor)) {
+                    blackTimeMs = Math.max(0, blackTimeMs - elapsed);
+                }
+                lastTickTimestamp = now;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void switchActiveColor() {
+            lock.lock();
+            try {
+                activeColor = "WHITE".equals(activeColor) ? "BLACK" : "WHITE";
+                lastTickTimestamp = System.currentTimeMillis();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Long getWhiteTimeMs() {
+            return whiteTimeMs;
+        }
+
+        private Long getBlackTimeMs() {
+            return blackTimeMs;
+        }
+
+        private String getActiveColor() {
+            return activeColor;
+        }
+    }
+}
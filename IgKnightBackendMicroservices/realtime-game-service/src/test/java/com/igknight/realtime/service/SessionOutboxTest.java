@@ -0,0 +1,152 @@
+package com.igknight.realtime.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * A client that stops reading, simulated by a session whose sendMessage blocks until released.
+ */
+class SessionOutboxTest {
+
+    private final WebSocketSession session = mock(WebSocketSession.class);
+    private final AtomicInteger slowConsumers = new AtomicInteger();
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile Thread writer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(session.getId()).thenReturn("session-1");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            writer = Thread.currentThread();
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException("Send interrupted");
+            }
+            return null;
+        }).when(session).sendMessage(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void disconnectsOnceQueuedBytesExceedLimit() throws Exception {
+        SessionOutbox outbox = new SessionOutbox(session, 60_000, 100, slowConsumers::incrementAndGet);
+        assertTrue(outbox.offer(message(40)));
+        awaitSendBlocked();
+
+        assertTrue(outbox.offer(message(60)));
+        assertEquals(60, outbox.getQueuedBytes());
+        assertFalse(outbox.offer(message(50)));
+
+        assertEquals(1, slowConsumers.get());
+        verify(session, timeout(1_000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertFalse(outbox.offer(message(1)));
+        assertEquals(1, slowConsumers.get());
+    }
+
+    @Test
+    void concurrentOverflowDisconnectsOnce() throws Exception {
+        SessionOutbox outbox = new SessionOutbox(session, 60_000, 100, slowConsumers::incrementAndGet);
+        assertTrue(outbox.offer(message(10)));
+        awaitSendBlocked();
+
+        int senders = 8;
+        CyclicBarrier start = new CyclicBarrier(senders);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < senders; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (Exception e) {
+                    return;
+                }
+                // Each sender overflows the buffer on its own by its second message
+                while (outbox.offer(message(60))) {
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+
+        assertEquals(1, slowConsumers.get());
+        verify(session, after(500).times(1)).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void disconnectsOnNextOfferOnceSendTimeLimitPassed() throws Exception {
+        SessionOutbox outbox = new SessionOutbox(session, 50, 1 << 20, slowConsumers::incrementAndGet);
+        assertTrue(outbox.offer(message(10)));
+        awaitSendBlocked();
+
+        Thread.sleep(100);
+        // Nothing checks the limit until another message is queued
+        assertEquals(0, slowConsumers.get());
+        verify(session, never()).close(any());
+
+        assertFalse(outbox.offer(message(10)));
+        assertEquals(1, slowConsumers.get());
+        verify(session, timeout(1_000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void closeDropsQueuedMessagesAndStopsWriter() throws Exception {
+        SessionOutbox outbox = new SessionOutbox(session, 60_000, 1 << 20, slowConsumers::incrementAndGet);
+        assertTrue(outbox.offer(message(10)));
+        awaitSendBlocked();
+        assertTrue(outbox.offer(message(20)));
+        assertTrue(outbox.offer(message(30)));
+        assertEquals(2, outbox.getQueuedMessages());
+        assertEquals(50, outbox.getQueuedBytes());
+
+        outbox.close();
+
+        assertEquals(0, outbox.getQueuedMessages());
+        assertEquals(0, outbox.getQueuedBytes());
+        writer.join(1_000);
+        assertFalse(writer.isAlive());
+        assertFalse(outbox.offer(message(10)));
+        verify(session, times(1)).sendMessage(any());
+        assertEquals(0, slowConsumers.get());
+    }
+
+    private void awaitSendBlocked() throws InterruptedException {
+        assertTrue(sending.await(1, TimeUnit.SECONDS), "Writer did not start sending");
+    }
+
+    private static TextMessage message(int bytes) {
+        return new TextMessage("x".repeat(bytes));
+    }
+}
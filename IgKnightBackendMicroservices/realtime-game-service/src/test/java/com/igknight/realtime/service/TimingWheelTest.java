@@ -0,0 +1,145 @@
+package com.igknight.realtime.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives a small wheel (1 ms ticks, 4 buckets per level, so 256 ticks of range) against a manual clock,
+ * stepping it a tenth of a tick at a time.
+ */
+class TimingWheelTest {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long STEP_NANOS = TICK_NANOS / 10;
+
+    // An arbitrary origin, as for System.nanoTime
+    private final AtomicLong clock = new AtomicLong(123_456_789L);
+    private TimingWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimingWheel(1, 4, Runnable::run, clock::get);
+    }
+
+    @Test
+    void runsNoEarlierThanDeadlineAndAtMostOneTickLate() {
+        long[] delays = {
+            0, 1, 999_999, 1_000_000, 1_500_000, 3_000_000, 4_000_000, 5_000_000, 15_200_000,
+            16_000_000, 63_000_000, 64_000_000, 100_000_000, 255_000_000, 300_000_000, 1_000_000_000
+        };
+        // Scheduled between ticks, with the wheel already running
+        advanceBy(2_300_000);
+        long scheduledAt = clock.get();
+        long[] ranAt = new long[delays.length];
+        for (int i = 0; i < delays.length; i++) {
+            int index = i;
+            wheel.schedule(delays[i], TimeUnit.NANOSECONDS, () -> ranAt[index] = clock.get());
+        }
+
+        advanceBy(1_100_000_000);
+
+        for (int i = 0; i < delays.length; i++) {
+            long deadline = scheduledAt + delays[i];
+            assertTrue(ranAt[i] >= deadline, "Task with delay " + delays[i] + " ran early");
+            assertTrue(ranAt[i] <= deadline + TICK_NANOS + STEP_NANOS,
+                    "Task with delay " + delays[i] + " ran " + (ranAt[i] - deadline) + " ns late");
+        }
+    }
+
+    @Test
+    void cascadesFromHigherLevels() {
+        AtomicBoolean ran = new AtomicBoolean();
+        // 20 ticks out: placed on level 2, moved to level 1 at tick 16 and to level 0 at tick 20
+        wheel.schedule(20, TimeUnit.MILLISECONDS, () -> ran.set(true));
+
+        advanceBy(16_500_000);
+        assertFalse(ran.get());
+        advanceBy(3_400_000);
+        assertFalse(ran.get());
+        advanceBy(200_000);
+        assertTrue(ran.get());
+    }
+
+    @Test
+    void runsTaskBeyondWheelRange() {
+        AtomicBoolean ran = new AtomicBoolean();
+        wheel.schedule(1, TimeUnit.SECONDS, () -> ran.set(true));
+
+        advanceBy(999_900_000);
+        assertFalse(ran.get());
+        advanceBy(200_000);
+        assertTrue(ran.get());
+    }
+
+    @Test
+    void cancelledTaskDoesNotRun() {
+        AtomicBoolean ran = new AtomicBoolean();
+        TimingWheel.Timeout timeout = wheel.schedule(10, TimeUnit.MILLISECONDS, () -> ran.set(true));
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        advanceBy(20_000_000);
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void cannotCancelTaskThatRan() {
+        AtomicBoolean ran = new AtomicBoolean();
+        TimingWheel.Timeout timeout = wheel.schedule(1, TimeUnit.MILLISECONDS, () -> ran.set(true));
+
+        advanceBy(2_000_000);
+        assertTrue(ran.get());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    void cancelRacingExpiryEitherCancelsOrRuns() throws InterruptedException {
+        int count = 10_000;
+        AtomicIntegerArray runs = new AtomicIntegerArray(count);
+        TimingWheel.Timeout[] timeouts = new TimingWheel.Timeout[count];
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            timeouts[i] = wheel.schedule(i % 5_000, TimeUnit.MICROSECONDS, () -> runs.incrementAndGet(index));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        Thread expirer = new Thread(() -> {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            advanceBy(10_000_000);
+        });
+        expirer.start();
+        boolean[] cancelled = new boolean[count];
+        start.countDown();
+        for (int i = 0; i < count; i++) {
+            cancelled[i] = timeouts[i].cancel();
+        }
+        expirer.join();
+        wheel.expireDue();
+
+        for (int i = 0; i < count; i++) {
+            assertEquals(cancelled[i] ? 0 : 1, runs.get(i), "Timeout " + i);
+        }
+    }
+
+    private void advanceBy(long nanos) {
+        long target = clock.get() + nanos;
+        while (clock.get() < target) {
+            clock.set(Math.min(clock.get() + STEP_NANOS, target));
+            wheel.expireDue();
+        }
+    }
+}